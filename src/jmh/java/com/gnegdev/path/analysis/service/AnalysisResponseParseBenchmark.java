@@ -0,0 +1,37 @@
+package com.gnegdev.path.analysis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnegdev.path.analysis.dto.AnalysisResultDto;
+import com.gnegdev.path.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code YandexLlmService.parseResponse}: envelope parsing, {@code extractOutputText},
+ * {@code stripMarkdownCodeBlock} and {@code readValue} into {@link AnalysisResultDto}.
+ * Runs on every analysis, including cache hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisResponseParseBenchmark {
+
+    private YandexLlmService service;
+    private String rawResponse;
+
+    @Setup
+    public void setUp() {
+        // Only the ObjectMapper is used when parsing
+        service = new YandexLlmService(null, new ObjectMapper(), null, null, null);
+        rawResponse = Fixtures.read("analysis-response.json");
+    }
+
+    @Benchmark
+    public AnalysisResultDto parseResponse() {
+        return service.parseResponse(rawResponse);
+    }
+}
@@ -0,0 +1,34 @@
+package com.gnegdev.path.auth.service;
+
+import com.gnegdev.path.auth.entity.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtService#parseClaims}: HMAC-SHA256 signature check and claims parsing,
+ * done once per authenticated API request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService("path-jwt-secret-key-must-be-at-least-256-bits-long-for-hmac-sha256", 86_400_000L);
+        token = jwtService.generateToken(User.builder().id(1L).username("doctor").build());
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtService.parseClaims(token);
+    }
+}
@@ -0,0 +1,48 @@
+package com.gnegdev.path.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Loads the checked-in benchmark inputs from {@code src/jmh/resources/fixtures}.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    public static String read(String name) {
+        try (InputStream in = open(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies a fixture to a temporary file, since PDF extraction works on files rather than streams.
+     */
+    public static Path copyToTempFile(String name) {
+        try (InputStream in = open(name)) {
+            Path file = Files.createTempFile("jmh-", "-" + name);
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream open(String name) {
+        InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+        if (in == null) {
+            throw new IllegalArgumentException("Missing benchmark fixture: " + name);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,81 @@
+package com.gnegdev.path.document.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnegdev.path.analysis.dto.AnalysisResponse;
+import com.gnegdev.path.analysis.dto.AnalysisResultDto;
+import com.gnegdev.path.analysis.entity.AnalysisResult;
+import com.gnegdev.path.benchmark.Fixtures;
+import com.gnegdev.path.document.dto.DocumentResponse;
+import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.extraction.dto.ExtractedDataDto;
+import com.gnegdev.path.extraction.entity.PatientData;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity building and DTO mapping for large results: {@code DocumentService.buildPatientData} in both
+ * storage modes, and {@code DocumentResponse.from} / {@code AnalysisResponse.from} over graphs built
+ * from the LLM response fixtures (40 treatments, 20 biopsies, 30 consultations, 15 imaging results;
+ * 30 mismatches, 20 recommendations).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientDataMappingBenchmark {
+
+    @Param({"JSONB", "TABLES"})
+    public PatientData.StorageMode storageMode;
+
+    private ExtractedDataDto extracted;
+    private PatientDocument document;
+    private AnalysisResult analysis;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        extracted = objectMapper.readValue(outputJson(objectMapper, "extraction-response.json"),
+                ExtractedDataDto.class);
+        AnalysisResultDto analysisDto = objectMapper.readValue(outputJson(objectMapper, "analysis-response.json"),
+                AnalysisResultDto.class);
+
+        document = PatientDocument.builder()
+                .id(1L)
+                .medicalHistoryFilename("history.pdf")
+                .status(PatientDocument.ProcessingStatus.COMPLETED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        document.setExtractedData(DocumentService.buildPatientData(document, extracted, storageMode));
+
+        analysis = AnalysisResult.builder().id(1L).document(document).build();
+        analysis.apply(analysisDto, LocalDateTime.now());
+    }
+
+    @Benchmark
+    public PatientData buildPatientData() {
+        return DocumentService.buildPatientData(document, extracted, storageMode);
+    }
+
+    @Benchmark
+    public DocumentResponse documentResponse() {
+        return DocumentResponse.from(document);
+    }
+
+    @Benchmark
+    public AnalysisResponse analysisResponse() {
+        return AnalysisResponse.from(analysis);
+    }
+
+    /**
+     * The model's JSON answer inside the Responses API envelope, without the markdown fence.
+     */
+    private static String outputJson(ObjectMapper objectMapper, String fixture) throws Exception {
+        String text = objectMapper.readTree(Fixtures.read(fixture))
+                .path("output").get(0).path("content").get(0).path("text").asText();
+        return text.substring(text.indexOf('{'), text.lastIndexOf('}') + 1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.gnegdev.path.document.service;
+
+import com.gnegdev.path.benchmark.Fixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF text extraction through {@link TextExtractionService#extractText(Path, String, String)} with the
+ * production memory and batch settings. {@code sequential} is the single-document
+ * {@code extractFromPdf} path; {@code parallel} splits the 300-page fixture into page ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private ForkJoinPool pool;
+    private TextExtractionService extraction;
+    private Path pdf;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        extraction = new TextExtractionService(
+                DataSize.ofMegabytes(16),
+                25,
+                System.getProperty("java.io.tmpdir"),
+                pool,
+                "parallel".equals(mode),
+                100,
+                4,
+                DataSize.ofMegabytes(4),
+                new SimpleMeterRegistry()
+        );
+        pdf = Fixtures.copyToTempFile("history-" + size + ".pdf");
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public String extractText() throws IOException {
+        return extraction.extractText(pdf, "application/pdf", pdf.getFileName().toString());
+    }
+}
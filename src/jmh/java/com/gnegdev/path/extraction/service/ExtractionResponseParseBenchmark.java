@@ -0,0 +1,36 @@
+package com.gnegdev.path.extraction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnegdev.path.benchmark.Fixtures;
+import com.gnegdev.path.extraction.dto.ExtractedDataDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code LlmExtractionService.parseResponse}: envelope parsing, {@code extractOutputText},
+ * {@code stripMarkdownCodeBlock} and {@code readValue} into {@link ExtractedDataDto}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionResponseParseBenchmark {
+
+    private LlmExtractionService service;
+    private String rawResponse;
+
+    @Setup
+    public void setUp() {
+        // Only the ObjectMapper is used when parsing
+        service = new LlmExtractionService(null, new ObjectMapper(), null, null, null);
+        rawResponse = Fixtures.read("extraction-response.json");
+    }
+
+    @Benchmark
+    public ExtractedDataDto parseResponse() {
+        return service.parseResponse(rawResponse);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gnegdev.path.analysis.controller;
+
+import com.gnegdev.path.analysis.dto.AnalysisBatchRequest;
+import com.gnegdev.path.analysis.dto.AnalysisBatchResponse;
+import com.gnegdev.path.analysis.service.AnalysisBatchService;
+import com.gnegdev.path.auth.entity.User;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/analysis/batches")
+@RequiredArgsConstructor
+public class AnalysisBatchController {
+
+    private final AnalysisBatchService analysisBatchService;
+
+    /**
+     * Queue LLM analysis for many documents: the listed ids, or every completed document of the user.
+     * Documents are analysed as background jobs, at most {@code parallelism} at a time.
+     * Poll progress via GET /api/analysis/batches/{id}.
+     *
+     * POST /api/analysis/batches
+     */
+    @PostMapping
+    public ResponseEntity<AnalysisBatchResponse> create(
+            @Valid @RequestBody AnalysisBatchRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.accepted().body(analysisBatchService.createBatch(user, request));
+    }
+
+    /**
+     * Get batch progress (items per status) and the state of every item.
+     *
+     * GET /api/analysis/batches/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<AnalysisBatchResponse> get(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(analysisBatchService.getBatch(id, user));
+    }
+
+    /**
+     * Cancel the documents not analysed yet; analyses already running finish.
+     *
+     * POST /api/analysis/batches/{id}/cancel
+     */
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<AnalysisBatchResponse> cancel(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(analysisBatchService.cancel(id, user));
+    }
+}
@@ -2,10 +2,15 @@ package com.gnegdev.path.analysis.controller;
 
 import com.gnegdev.path.analysis.dto.AnalysisResponse;
 import com.gnegdev.path.analysis.service.AnalysisService;
+import com.gnegdev.path.analysis.service.AnalysisStreamService;
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.job.dto.JobResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/documents/{documentId}/analysis")
@@ -13,23 +18,57 @@ import org.springframework.web.bind.annotation.*;
 public class AnalysisController {
 
     private final AnalysisService analysisService;
+    private final AnalysisStreamService analysisStreamService;
 
     /**
      * Run LLM analysis for the given document.
-     * Downloads medical history and treatment plan from MinIO,
+     * Reads the medical history and treatment plan text stored at upload,
      * sends them to the Yandex Cloud LLM, and saves the result to DB.
+     * {@code refresh=true} skips the LLM response cache.
      *
      * POST /api/documents/{documentId}/analysis
      */
     @PostMapping
     public ResponseEntity<AnalysisResponse> analyze(
             @PathVariable Long documentId,
-            Authentication authentication
+            @RequestParam(defaultValue = "false") boolean refresh,
+            @AuthenticationPrincipal User user
     ) {
-        AnalysisResponse response = analysisService.analyze(documentId, authentication.getName());
+        AnalysisResponse response = analysisService.analyze(documentId, user, refresh);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Run LLM analysis and stream the model output as Server-Sent Events:
+     * {@code delta} events carry text chunks, the final {@code result} event carries the saved analysis.
+     *
+     * POST /api/documents/{documentId}/analysis/stream
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @PathVariable Long documentId,
+            @AuthenticationPrincipal User user
+    ) {
+        return analysisStreamService.stream(documentId, user);
+    }
+
+    /**
+     * Queue LLM analysis as a background job and return immediately.
+     * Poll the job via GET /api/jobs/{id}, then read the result via GET .../analysis.
+     * {@code refresh=true} skips the LLM response cache.
+     *
+     * POST /api/documents/{documentId}/analysis/jobs
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<JobResponse> enqueue(
+            @PathVariable Long documentId,
+            @RequestParam(defaultValue = "false") boolean refresh,
+            @AuthenticationPrincipal User user
+    ) {
+        JobResponse response = analysisService.enqueueAnalysis(documentId, user, refresh);
+        return ResponseEntity.accepted().body(response);
+    }
+
     /**
      * Get the existing analysis result for the given document.
      *
@@ -38,9 +77,9 @@ public class AnalysisController {
     @GetMapping
     public ResponseEntity<AnalysisResponse> get(
             @PathVariable Long documentId,
-            Authentication authentication
+            @AuthenticationPrincipal User user
     ) {
-        AnalysisResponse response = analysisService.getAnalysis(documentId, authentication.getName());
+        AnalysisResponse response = analysisService.getAnalysis(documentId, user);
         return ResponseEntity.ok(response);
     }
 }
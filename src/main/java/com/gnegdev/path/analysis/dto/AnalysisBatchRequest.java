@@ -0,0 +1,19 @@
+package com.gnegdev.path.analysis.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.List;
+
+/**
+ * Documents to analyse: either the listed {@code documentIds}, or with {@code allCompleted}
+ * every completed document of the user.
+ *
+ * @param parallelism most documents analysed at the same time; the configured default if omitted
+ */
+public record AnalysisBatchRequest(
+        List<@NotNull Long> documentIds,
+        boolean allCompleted,
+        @Positive Integer parallelism
+) {
+}
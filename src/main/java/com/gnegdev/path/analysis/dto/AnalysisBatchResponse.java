@@ -0,0 +1,68 @@
+package com.gnegdev.path.analysis.dto;
+
+import com.gnegdev.path.analysis.entity.AnalysisBatch;
+import com.gnegdev.path.analysis.entity.AnalysisBatchItem;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class AnalysisBatchResponse {
+
+    private Long id;
+    private String status;
+    private int parallelism;
+    private int total;
+    /** Items per status, every status present. */
+    private Map<AnalysisBatchItem.Status, Long> progress;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private List<ItemResponse> items;
+
+    public static AnalysisBatchResponse from(AnalysisBatch batch, List<AnalysisBatchStatusCount> counts,
+                                             List<AnalysisBatchItem> items) {
+        Map<AnalysisBatchItem.Status, Long> progress = new EnumMap<>(AnalysisBatchItem.Status.class);
+        for (AnalysisBatchItem.Status status : AnalysisBatchItem.Status.values()) {
+            progress.put(status, 0L);
+        }
+        counts.forEach(c -> progress.put(c.status(), c.count()));
+        return AnalysisBatchResponse.builder()
+                .id(batch.getId())
+                .status(batch.getStatus().name())
+                .parallelism(batch.getParallelism())
+                .total(batch.getTotal())
+                .progress(progress)
+                .createdAt(batch.getCreatedAt())
+                .finishedAt(batch.getFinishedAt())
+                .items(items.stream().map(ItemResponse::from).toList())
+                .build();
+    }
+
+    /**
+     * A succeeded item's result is read through {@code GET /api/documents/{documentId}/analysis}.
+     */
+    @Data
+    @Builder
+    public static class ItemResponse {
+        private Long documentId;
+        private String status;
+        private Long jobId;
+        private String error;
+        private LocalDateTime finishedAt;
+
+        public static ItemResponse from(AnalysisBatchItem item) {
+            return ItemResponse.builder()
+                    .documentId(item.getDocumentId())
+                    .status(item.getStatus().name())
+                    .jobId(item.getJobId())
+                    .error(item.getError())
+                    .finishedAt(item.getFinishedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.gnegdev.path.analysis.dto;
+
+import com.gnegdev.path.analysis.entity.AnalysisBatchItem;
+
+public record AnalysisBatchStatusCount(AnalysisBatchItem.Status status, long count) {
+}
@@ -0,0 +1,53 @@
+package com.gnegdev.path.analysis.entity;
+
+import com.gnegdev.path.auth.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Analysis of a set of the user's documents. Its {@link AnalysisBatchItem}s are handed to the job queue
+ * as {@code ANALYSIS} jobs, at most {@code parallelism} at a time, by the batch pump.
+ */
+@Entity
+@Table(name = "analysis_batches")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+@ToString(exclude = "user")
+public class AnalysisBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    /**
+     * Most items of this batch queued or running as jobs at the same time.
+     */
+    private int parallelism;
+
+    private int total;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        RUNNING, COMPLETED, CANCELLED
+    }
+}
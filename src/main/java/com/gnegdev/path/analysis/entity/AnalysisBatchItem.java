@@ -0,0 +1,51 @@
+package com.gnegdev.path.analysis.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One document of an {@link AnalysisBatch}. {@code PENDING} items wait for a free slot in the batch;
+ * {@code SUBMITTED} items have an {@code ANALYSIS} job and settle with the outcome of that job.
+ * {@code ownsJob} is set when the job was created for the item rather than already queued for the document.
+ */
+@Entity
+@Table(name = "analysis_batch_items")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class AnalysisBatchItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_batch_items_seq")
+    @SequenceGenerator(name = "analysis_batch_items_seq", sequenceName = "analysis_batch_items_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false)
+    private Long batchId;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private Long jobId;
+
+    @Column(nullable = false)
+    private boolean ownsJob;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        PENDING, SUBMITTED, SUCCEEDED, FAILED, CANCELLED
+    }
+}
@@ -1,11 +1,10 @@
 package com.gnegdev.path.analysis.entity;
 
+import com.gnegdev.path.analysis.dto.AnalysisResultDto;
 import com.gnegdev.path.document.entity.PatientDocument;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -18,12 +17,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@EntityListeners(AuditingEntityListener.class)
 @ToString
 public class AnalysisResult {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_results_seq")
+    @SequenceGenerator(name = "analysis_results_seq", sequenceName = "analysis_results_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -52,6 +51,34 @@ public class AnalysisResult {
     @Column(name = "source", columnDefinition = "TEXT")
     private List<String> sources = new ArrayList<>();
 
-    @CreatedDate
     private LocalDateTime analyzedAt;
+
+    /**
+     * Replaces the content with a new LLM result in place. Re-analysis then updates the existing row
+     * and rewrites the child rows in batches instead of deleting and re-inserting the whole graph.
+     */
+    public void apply(AnalysisResultDto dto, LocalDateTime analyzedAt) {
+        this.optimal = dto.getOptimal();
+        this.analyzedAt = analyzedAt;
+
+        mismatches.clear();
+        if (dto.getMismatches() != null) {
+            dto.getMismatches().forEach(m -> mismatches.add(MismatchEntry.builder()
+                    .analysisResult(this)
+                    .type(m.getType())
+                    .current(m.getCurrent())
+                    .recommended(m.getRecommended())
+                    .build()));
+        }
+
+        recommendations.clear();
+        if (dto.getRecommendations() != null) {
+            recommendations.addAll(dto.getRecommendations());
+        }
+
+        sources.clear();
+        if (dto.getSources() != null) {
+            sources.addAll(dto.getSources());
+        }
+    }
 }
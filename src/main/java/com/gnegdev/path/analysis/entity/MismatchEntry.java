@@ -15,7 +15,8 @@ import lombok.*;
 public class MismatchEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_mismatches_seq")
+    @SequenceGenerator(name = "analysis_mismatches_seq", sequenceName = "analysis_mismatches_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,43 @@
+package com.gnegdev.path.analysis.repository;
+
+import com.gnegdev.path.analysis.dto.AnalysisBatchStatusCount;
+import com.gnegdev.path.analysis.entity.AnalysisBatchItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AnalysisBatchItemRepository extends JpaRepository<AnalysisBatchItem, Long> {
+
+    List<AnalysisBatchItem> findByBatchIdOrderById(Long batchId);
+
+    /**
+     * Items of the batch in the given status, in submission order.
+     * Served by {@code idx_analysis_batch_items_batch_status (batch_id, status, id)}.
+     */
+    List<AnalysisBatchItem> findByBatchIdAndStatusOrderById(Long batchId, AnalysisBatchItem.Status status, Limit limit);
+
+    boolean existsByBatchIdAndStatus(Long batchId, AnalysisBatchItem.Status status);
+
+    @Query("""
+            select new com.gnegdev.path.analysis.dto.AnalysisBatchStatusCount(i.status, count(i))
+            from AnalysisBatchItem i
+            where i.batchId = :batchId
+            group by i.status
+            """)
+    List<AnalysisBatchStatusCount> countByStatus(@Param("batchId") Long batchId);
+
+    @Modifying
+    @Query("""
+            update AnalysisBatchItem i set i.status = :to, i.finishedAt = :now
+            where i.batchId = :batchId and i.status = :from
+            """)
+    int updateStatus(@Param("batchId") Long batchId,
+                     @Param("from") AnalysisBatchItem.Status from,
+                     @Param("to") AnalysisBatchItem.Status to,
+                     @Param("now") LocalDateTime now);
+}
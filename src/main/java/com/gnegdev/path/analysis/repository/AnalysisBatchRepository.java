@@ -0,0 +1,44 @@
+package com.gnegdev.path.analysis.repository;
+
+import com.gnegdev.path.analysis.entity.AnalysisBatch;
+import com.gnegdev.path.auth.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AnalysisBatchRepository extends JpaRepository<AnalysisBatch, Long> {
+
+    Optional<AnalysisBatch> findByIdAndUser(Long id, User user);
+
+    /**
+     * Locks the batch until the caller's transaction ends, waiting for a pump pass in progress.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from AnalysisBatch b where b.id = :id and b.user = :user")
+    Optional<AnalysisBatch> lockByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
+    /**
+     * Batches the pump still has to look at: running ones, and cancelled ones whose running jobs
+     * have not settled yet.
+     */
+    @Query(value = """
+            SELECT b.id FROM analysis_batches b
+            WHERE b.status = 'RUNNING'
+               OR (b.status = 'CANCELLED' AND EXISTS (
+                   SELECT 1 FROM analysis_batch_items i
+                   WHERE i.batch_id = b.id AND i.status = 'SUBMITTED'))
+            ORDER BY b.id
+            """, nativeQuery = true)
+    List<Long> findIdsToPump();
+
+    /**
+     * Locks the batch for one pump pass. A batch locked by another replica (or by a cancel) is skipped.
+     */
+    @Query(value = "SELECT * FROM analysis_batches WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<AnalysisBatch> tryLock(@Param("id") Long id);
+}
@@ -0,0 +1,261 @@
+package com.gnegdev.path.analysis.service;
+
+import com.gnegdev.path.analysis.dto.AnalysisBatchRequest;
+import com.gnegdev.path.analysis.dto.AnalysisBatchResponse;
+import com.gnegdev.path.analysis.dto.AnalysisBatchStatusCount;
+import com.gnegdev.path.analysis.entity.AnalysisBatch;
+import com.gnegdev.path.analysis.entity.AnalysisBatchItem;
+import com.gnegdev.path.analysis.repository.AnalysisBatchItemRepository;
+import com.gnegdev.path.analysis.repository.AnalysisBatchRepository;
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.document.repository.PatientDocumentRepository;
+import com.gnegdev.path.job.entity.ProcessingJob;
+import com.gnegdev.path.job.service.JobQueueService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Analysis of many documents at once, e.g. after a guideline update. A batch does not run anything itself:
+ * the pump hands its items to the job queue as {@code ANALYSIS} jobs, never more than the batch's
+ * parallelism at a time, so a large batch neither floods the queue ahead of interactive jobs nor
+ * pushes past the LLM quota. Each item settles with the outcome of its job, including its retries.
+ * Batch jobs bypass the LLM response cache: a batch is run to get answers under the current guidelines,
+ * not the ones cached for the same text.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisBatchService {
+
+    private final PatientDocumentRepository documentRepository;
+    private final AnalysisBatchRepository batchRepository;
+    private final AnalysisBatchItemRepository itemRepository;
+    private final JobQueueService jobQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.analysis.batch.default-parallelism}")
+    private int defaultParallelism;
+
+    @Value("${app.analysis.batch.max-parallelism}")
+    private int maxParallelism;
+
+    @Value("${app.analysis.batch.max-size}")
+    private int maxSize;
+
+    /**
+     * Creates the batch with all items {@code PENDING}; the pump starts submitting them on its next pass.
+     * Every listed document must belong to the user and be {@code COMPLETED}.
+     */
+    @Transactional
+    public AnalysisBatchResponse createBatch(User user, AnalysisBatchRequest request) {
+        List<Long> documentIds = resolveDocuments(user, request);
+        int parallelism = Math.clamp(
+                request.parallelism() != null ? request.parallelism() : defaultParallelism, 1, maxParallelism);
+
+        AnalysisBatch batch = batchRepository.save(AnalysisBatch.builder()
+                .user(user)
+                .status(AnalysisBatch.Status.RUNNING)
+                .parallelism(parallelism)
+                .total(documentIds.size())
+                .build());
+        List<AnalysisBatchItem> items = itemRepository.saveAll(documentIds.stream()
+                .map(documentId -> AnalysisBatchItem.builder()
+                        .batchId(batch.getId())
+                        .documentId(documentId)
+                        .status(AnalysisBatchItem.Status.PENDING)
+                        .build())
+                .toList());
+        log.info("Analysis batch {} created: {} documents, parallelism {}", batch.getId(), items.size(), parallelism);
+        return AnalysisBatchResponse.from(batch,
+                List.of(new AnalysisBatchStatusCount(AnalysisBatchItem.Status.PENDING, items.size())), items);
+    }
+
+    @Transactional(readOnly = true)
+    public AnalysisBatchResponse getBatch(Long id, User user) {
+        AnalysisBatch batch = batchRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new RuntimeException("Analysis batch not found: " + id));
+        return AnalysisBatchResponse.from(batch, itemRepository.countByStatus(id), itemRepository.findByBatchIdOrderById(id));
+    }
+
+    /**
+     * Stops the batch: pending items and items whose job has not started are cancelled. Jobs already
+     * running are left to finish and their items settle as usual, so their analyses are still stored.
+     * Only jobs the batch created are cancelled: an item that joined an analysis queued separately for
+     * the same document is detached from it, and that job runs on for whoever queued it.
+     */
+    public AnalysisBatchResponse cancel(Long id, User user) {
+        transactionTemplate.executeWithoutResult(status -> {
+            AnalysisBatch batch = batchRepository.lockByIdAndUser(id, user)
+                    .orElseThrow(() -> new RuntimeException("Analysis batch not found: " + id));
+            if (batch.getStatus() != AnalysisBatch.Status.RUNNING) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            int cancelled = itemRepository.updateStatus(
+                    id, AnalysisBatchItem.Status.PENDING, AnalysisBatchItem.Status.CANCELLED, now);
+            for (AnalysisBatchItem item : itemRepository.findByBatchIdAndStatusOrderById(
+                    id, AnalysisBatchItem.Status.SUBMITTED, Limit.unlimited())) {
+                if (!item.isOwnsJob() || jobQueue.cancelQueuedJob(item.getJobId())) {
+                    settle(item, AnalysisBatchItem.Status.CANCELLED, null, now);
+                    cancelled++;
+                }
+            }
+            batch.setStatus(AnalysisBatch.Status.CANCELLED);
+            batch.setFinishedAt(now);
+            log.info("Analysis batch {} cancelled, {} items dropped", id, cancelled);
+        });
+        return getBatch(id, user);
+    }
+
+    /**
+     * Advances every open batch. Each batch is locked for its pass, so replicas pump different batches
+     * and a batch being cancelled is skipped until the next pass.
+     */
+    @Scheduled(fixedDelayString = "${app.analysis.batch.pump-interval-ms}")
+    public void pump() {
+        List<Long> batchIds;
+        try {
+            batchIds = batchRepository.findIdsToPump();
+        } catch (Exception e) {
+            log.error("Failed to list analysis batches: {}", e.getMessage(), e);
+            return;
+        }
+        for (Long batchId : batchIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        batchRepository.tryLock(batchId).ifPresent(this::advance));
+            } catch (Exception e) {
+                log.error("Failed to advance analysis batch {}: {}", batchId, e.getMessage(), e);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+
+    /**
+     * Settles submitted items whose job finished, then fills the free slots with pending items, and
+     * completes the batch once nothing is pending or in flight. A cancelled batch only settles.
+     */
+    private void advance(AnalysisBatch batch) {
+        Long batchId = batch.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<AnalysisBatchItem> submitted = itemRepository.findByBatchIdAndStatusOrderById(
+                batchId, AnalysisBatchItem.Status.SUBMITTED, Limit.unlimited());
+        Map<Long, ProcessingJob> jobs = jobQueue.findJobs(
+                submitted.stream().map(AnalysisBatchItem::getJobId).toList());
+        int active = 0;
+        for (AnalysisBatchItem item : submitted) {
+            ProcessingJob job = jobs.get(item.getJobId());
+            if (job == null) {
+                // Queued jobs are dropped when their document is deleted
+                settle(item, AnalysisBatchItem.Status.FAILED, "Analysis job no longer exists", now);
+            } else if (job.getStatus() == ProcessingJob.JobStatus.SUCCEEDED) {
+                settle(item, AnalysisBatchItem.Status.SUCCEEDED, null, job.getFinishedAt());
+            } else if (job.getStatus() == ProcessingJob.JobStatus.DEAD) {
+                settle(item, AnalysisBatchItem.Status.FAILED, job.getLastError(), job.getFinishedAt());
+            } else {
+                active++;
+            }
+        }
+        if (batch.getStatus() != AnalysisBatch.Status.RUNNING) {
+            return;
+        }
+
+        while (active < batch.getParallelism()) {
+            List<AnalysisBatchItem> next = itemRepository.findByBatchIdAndStatusOrderById(
+                    batchId, AnalysisBatchItem.Status.PENDING, Limit.of(batch.getParallelism() - active));
+            if (next.isEmpty()) {
+                break;
+            }
+            for (AnalysisBatchItem item : next) {
+                if (submit(item, now)) {
+                    active++;
+                }
+            }
+        }
+
+        if (active == 0 && !itemRepository.existsByBatchIdAndStatus(batchId, AnalysisBatchItem.Status.PENDING)) {
+            batch.setStatus(AnalysisBatch.Status.COMPLETED);
+            batch.setFinishedAt(now);
+            log.info("Analysis batch {} completed", batchId);
+        }
+    }
+
+    /**
+     * Queues the analysis job for the item, unless its document was deleted or is being reprocessed
+     * since the batch was created. If an analysis of the document is already queued, the item follows that job
+     * without owning it.
+     */
+    private boolean submit(AnalysisBatchItem item, LocalDateTime now) {
+        PatientDocument doc = documentRepository.findById(item.getDocumentId()).orElse(null);
+        if (doc == null) {
+            settle(item, AnalysisBatchItem.Status.FAILED, "Document not found: " + item.getDocumentId(), now);
+            return false;
+        }
+        if (doc.getStatus() != PatientDocument.ProcessingStatus.COMPLETED) {
+            settle(item, AnalysisBatchItem.Status.FAILED,
+                    "Document is not ready for analysis (status: " + doc.getStatus() + ")", now);
+            return false;
+        }
+        JobQueueService.Enqueued enqueued = jobQueue.offer(ProcessingJob.JobType.ANALYSIS, doc.getId(), true);
+        item.setJobId(enqueued.job().getId());
+        item.setOwnsJob(enqueued.created());
+        item.setStatus(AnalysisBatchItem.Status.SUBMITTED);
+        return true;
+    }
+
+    private void settle(AnalysisBatchItem item, AnalysisBatchItem.Status status, String error, LocalDateTime finishedAt) {
+        item.setStatus(status);
+        item.setError(error);
+        item.setFinishedAt(finishedAt);
+        meterRegistry.counter("path.analysis.batch.items", "status", status.name()).increment();
+    }
+
+    private List<Long> resolveDocuments(User user, AnalysisBatchRequest request) {
+        boolean listed = request.documentIds() != null && !request.documentIds().isEmpty();
+        if (listed == request.allCompleted()) {
+            throw new IllegalArgumentException("Pass either documentIds or allCompleted");
+        }
+
+        if (request.allCompleted()) {
+            // One extra row tells whether the user has more documents than a batch may hold
+            List<Long> ids = documentRepository.findIdsByUserAndStatus(
+                    user, PatientDocument.ProcessingStatus.COMPLETED, Limit.of(maxSize + 1));
+            if (ids.isEmpty()) {
+                throw new IllegalStateException("No completed documents to analyse");
+            }
+            if (ids.size() > maxSize) {
+                throw new IllegalArgumentException("A batch holds at most " + maxSize + " documents");
+            }
+            return ids;
+        }
+
+        List<Long> requested = request.documentIds().stream().distinct().toList();
+        if (requested.size() > maxSize) {
+            throw new IllegalArgumentException("A batch holds at most " + maxSize + " documents");
+        }
+        Set<Long> ready = new HashSet<>(documentRepository.findIdsByUserAndStatusAndIdIn(
+                user, PatientDocument.ProcessingStatus.COMPLETED, requested));
+        List<Long> missing = requested.stream().filter(id -> !ready.contains(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Documents not found or not ready for analysis: " + missing);
+        }
+        return requested;
+    }
+}
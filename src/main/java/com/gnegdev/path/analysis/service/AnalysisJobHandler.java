@@ -0,0 +1,23 @@
+package com.gnegdev.path.analysis.service;
+
+import com.gnegdev.path.job.entity.ProcessingJob;
+import com.gnegdev.path.job.service.JobHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class AnalysisJobHandler implements JobHandler {
+
+    private final AnalysisService analysisService;
+
+    @Override
+    public ProcessingJob.JobType type() {
+        return ProcessingJob.JobType.ANALYSIS;
+    }
+
+    @Override
+    public void handle(ProcessingJob job) {
+        analysisService.analyzeDocument(job.getDocumentId(), job.isBypassCache());
+    }
+}
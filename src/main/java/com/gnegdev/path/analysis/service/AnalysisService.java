@@ -3,80 +3,95 @@ package com.gnegdev.path.analysis.service;
 import com.gnegdev.path.analysis.dto.AnalysisResponse;
 import com.gnegdev.path.analysis.dto.AnalysisResultDto;
 import com.gnegdev.path.analysis.entity.AnalysisResult;
-import com.gnegdev.path.analysis.entity.MismatchEntry;
 import com.gnegdev.path.analysis.repository.AnalysisResultRepository;
 import com.gnegdev.path.auth.entity.User;
-import com.gnegdev.path.auth.repository.UserRepository;
+import com.gnegdev.path.document.entity.DocumentText;
 import com.gnegdev.path.document.entity.PatientDocument;
 import com.gnegdev.path.document.repository.PatientDocumentRepository;
-import com.gnegdev.path.document.service.MinioStorageService;
-import com.gnegdev.path.document.service.TextExtractionService;
+import com.gnegdev.path.document.service.DocumentService;
+import com.gnegdev.path.job.dto.JobResponse;
+import com.gnegdev.path.job.entity.ProcessingJob;
+import com.gnegdev.path.job.service.JobQueueService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.IOException;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AnalysisService {
 
-    private final UserRepository userRepository;
     private final PatientDocumentRepository documentRepository;
     private final AnalysisResultRepository analysisResultRepository;
-    private final MinioStorageService minioStorage;
-    private final TextExtractionService textExtraction;
+    private final DocumentService documentService;
     private final YandexLlmService yandexLlmService;
+    private final JobQueueService jobQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
 
     /**
      * Run LLM analysis for a document. If analysis already exists — overwrites it.
+     * With {@code refresh} the LLM is asked again even if an identical input was answered before.
+     * Not transactional: see {@link #runAnalysis}.
      */
-    @Transactional
-    public AnalysisResponse analyze(Long documentId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
-
-        PatientDocument doc = documentRepository.findByIdAndUser(documentId, user)
-                .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
-
-        if (doc.getStatus() != PatientDocument.ProcessingStatus.COMPLETED) {
-            throw new IllegalStateException(
-                    "Document is not ready for analysis (status: " + doc.getStatus() + ")"
-            );
-        }
-
-        // Download and extract text from MinIO
-        String medicalHistoryText = downloadAndExtract(doc.getMedicalHistoryKey(), doc.getMedicalHistoryContentType());
-        String treatmentPlanText = doc.getTreatmentPlanKey() != null
-                ? downloadAndExtract(doc.getTreatmentPlanKey(), doc.getTreatmentPlanContentType())
-                : null;
+    public AnalysisResponse analyze(Long documentId, User user, boolean refresh) {
+        PatientDocument doc = findOwnedDocument(documentId, user);
+        return runAnalysis(doc, text ->
+                yandexLlmService.analyze(text.getMedicalHistory(), text.getTreatmentPlan(), refresh));
+    }
 
-        // Call Yandex Cloud LLM
-        AnalysisResultDto dto = yandexLlmService.analyze(medicalHistoryText, treatmentPlanText);
+    /**
+     * Same as {@link #analyze}, but forwards LLM output to {@code onDelta} while it is generated.
+     * The result is persisted only after the stream has completed.
+     */
+    public AnalysisResponse analyzeStreaming(Long documentId, User user, Consumer<String> onDelta) {
+        PatientDocument doc = findOwnedDocument(documentId, user);
+        return runAnalysis(doc, text ->
+                yandexLlmService.analyzeStreaming(text.getMedicalHistory(), text.getTreatmentPlan(), onDelta));
+    }
 
-        // Remove previous analysis if exists
-        analysisResultRepository.findByDocumentId(documentId)
-                .ifPresent(analysisResultRepository::delete);
+    /**
+     * Run LLM analysis for a document on behalf of a background job.
+     * Ownership was already checked when the job was enqueued.
+     */
+    public AnalysisResponse analyzeDocument(Long documentId, boolean bypassCache) {
+        PatientDocument doc = documentRepository.findById(documentId)
+                .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+        return runAnalysis(doc, text ->
+                yandexLlmService.analyze(text.getMedicalHistory(), text.getTreatmentPlan(), bypassCache));
+    }
 
-        // Persist new result
-        AnalysisResult result = buildAnalysisResult(doc, dto);
-        result = analysisResultRepository.save(result);
-        log.info("Analysis saved for document {}, id={}", documentId, result.getId());
+    /**
+     * Queue analysis as a durable background job instead of running it in the request thread.
+     * {@code refresh} as in {@link #analyze}.
+     */
+    @Transactional
+    public JobResponse enqueueAnalysis(Long documentId, User user, boolean refresh) {
+        PatientDocument doc = documentRepository.findByIdAndUser(documentId, user)
+                .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
 
-        return AnalysisResponse.from(result);
+        requireCompleted(doc);
+        return JobResponse.from(jobQueue.enqueue(ProcessingJob.JobType.ANALYSIS, doc.getId(), refresh));
     }
 
     /**
      * Get existing analysis result for a document.
      */
     @Transactional(readOnly = true)
-    public AnalysisResponse getAnalysis(Long documentId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
-
+    public AnalysisResponse getAnalysis(Long documentId, User user) {
         // Verify document ownership
         documentRepository.findByIdAndUser(documentId, user)
                 .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
@@ -89,35 +104,58 @@ public class AnalysisService {
 
     // -------------------------------------------------------------------------
 
-    private String downloadAndExtract(String minioKey, String contentType) {
-        try {
-            byte[] bytes = minioStorage.downloadFile(minioKey).readAllBytes();
-            return textExtraction.extractText(bytes, contentType);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to extract text from MinIO object: " + minioKey, e);
-        }
+    /**
+     * Runs in three phases so no database connection is held while waiting on MinIO, PDFBox or the LLM:
+     * the document was loaded in a short read, the text is loaded (or extracted once) and the LLM called
+     * outside any transaction, and the result is written in a short transaction at the end.
+     * The write checks the document version read in the first phase and bumps it at commit, so an analysis
+     * of a document that was reprocessed or failed in the meantime — even by a transaction that commits
+     * after the check — is rejected instead of being stored against it.
+     */
+    private AnalysisResponse runAnalysis(PatientDocument doc, Function<DocumentText, AnalysisResultDto> llmCall) {
+        Long documentId = doc.getId();
+        requireCompleted(doc);
+
+        // Text extracted at ingest time — no MinIO round-trip or PDF parsing
+        DocumentText text = documentService.loadOrExtractText(doc);
+
+        // Call Yandex Cloud LLM
+        AnalysisResultDto dto = llmCall.apply(text);
+
+        Timer saveTimer = Timer.builder("path.db.save")
+                .description("Duration of the write transaction that stores a pipeline result")
+                .tag("operation", "analysis-result")
+                .register(meterRegistry);
+        return saveTimer.record(() -> transactionTemplate.execute(status -> {
+            PatientDocument current = documentRepository.findById(documentId)
+                    .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+            if (!Objects.equals(current.getVersion(), doc.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(PatientDocument.class, documentId);
+            }
+            // Versioned UPDATE at flush: a concurrent change committed after the check above fails this write
+            entityManager.lock(current, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
+            // Re-analysis updates the existing row in place; child rows are rewritten in JDBC batches
+            AnalysisResult result = analysisResultRepository.findByDocumentId(documentId)
+                    .orElseGet(() -> AnalysisResult.builder().document(current).build());
+            result.apply(dto, LocalDateTime.now());
+            result = analysisResultRepository.save(result);
+            log.info("Analysis saved for document {}, id={}", documentId, result.getId());
+
+            return AnalysisResponse.from(result);
+        }));
     }
 
-    private AnalysisResult buildAnalysisResult(PatientDocument doc, AnalysisResultDto dto) {
-        AnalysisResult result = AnalysisResult.builder()
-                .document(doc)
-                .optimal(dto.getOptimal())
-                .recommendations(dto.getRecommendations() != null ? dto.getRecommendations() : List.of())
-                .sources(dto.getSources() != null ? dto.getSources() : List.of())
-                .build();
-
-        if (dto.getMismatches() != null) {
-            dto.getMismatches().forEach(m -> {
-                MismatchEntry entry = MismatchEntry.builder()
-                        .type(m.getType())
-                        .current(m.getCurrent())
-                        .recommended(m.getRecommended())
-                        .build();
-                entry.setAnalysisResult(result);
-                result.getMismatches().add(entry);
-            });
-        }
+    private PatientDocument findOwnedDocument(Long documentId, User user) {
+        return documentRepository.findByIdAndUser(documentId, user)
+                .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+    }
 
-        return result;
+    private void requireCompleted(PatientDocument doc) {
+        if (doc.getStatus() != PatientDocument.ProcessingStatus.COMPLETED) {
+            throw new IllegalStateException(
+                    "Document is not ready for analysis (status: " + doc.getStatus() + ")"
+            );
+        }
     }
 }
@@ -0,0 +1,79 @@
+package com.gnegdev.path.analysis.service;
+
+import com.gnegdev.path.analysis.dto.AnalysisResponse;
+import com.gnegdev.path.auth.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Streams an analysis to the browser over Server-Sent Events.
+ * Emits {@code delta} events with chunks of LLM output while it is generated, then a single
+ * {@code result} event with the saved {@link AnalysisResponse}, or an {@code error} event.
+ */
+@Service
+@Slf4j
+public class AnalysisStreamService {
+
+    private final AnalysisService analysisService;
+    private final TaskExecutor analysisStreamExecutor;
+    private final long timeoutMs;
+
+    public AnalysisStreamService(
+            AnalysisService analysisService,
+            @Qualifier("analysisStreamExecutor") TaskExecutor analysisStreamExecutor,
+            @Value("${app.analysis.stream.timeout-ms:300000}") long timeoutMs
+    ) {
+        this.analysisService = analysisService;
+        this.analysisStreamExecutor = analysisStreamExecutor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public SseEmitter stream(Long documentId, User user) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        try {
+            analysisStreamExecutor.execute(() -> run(emitter, documentId, user));
+        } catch (TaskRejectedException e) {
+            log.warn("Analysis stream for document {} rejected: executor saturated", documentId);
+            sendError(emitter, "Сервер перегружен, попробуйте позже");
+        }
+        return emitter;
+    }
+
+    private void run(SseEmitter emitter, Long documentId, User user) {
+        try {
+            AnalysisResponse response = analysisService.analyzeStreaming(documentId, user, delta -> {
+                try {
+                    // JSON-encoded so newlines inside the chunk survive SSE framing
+                    emitter.send(SseEmitter.event().name("delta")
+                            .data(Map.of("text", delta), MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Client disconnected", e);
+                }
+            });
+            emitter.send(SseEmitter.event().name("result").data(response, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("Streaming analysis failed for document {}: {}", documentId, e.getMessage());
+            sendError(emitter, e.getMessage());
+        }
+    }
+
+    private void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error")
+                    .data(Map.of("error", message != null ? message : "Analysis failed"), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (Exception ignored) {
+            emitter.complete();
+        }
+    }
+}
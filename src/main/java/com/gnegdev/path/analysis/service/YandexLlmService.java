@@ -2,14 +2,27 @@ package com.gnegdev.path.analysis.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.gnegdev.path.analysis.dto.AnalysisResultDto;
+import com.gnegdev.path.llm.service.LlmCallGuard;
+import com.gnegdev.path.llm.service.LlmMetrics;
+import com.gnegdev.path.llm.service.LlmResponseCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClient;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Calls the Yandex Cloud Assistant Responses API.
@@ -31,6 +44,9 @@ public class YandexLlmService {
 
     private final RestClient restClient;
     private final ObjectMapper objectMapper;
+    private final LlmResponseCache responseCache;
+    private final LlmCallGuard callGuard;
+    private final LlmMetrics llmMetrics;
 
     @Value("${yandex.cloud.api-key}")
     private String apiKey;
@@ -43,15 +59,33 @@ public class YandexLlmService {
 
     public YandexLlmService(
             @Qualifier("yandexCloudRestClient") RestClient restClient,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            LlmResponseCache responseCache,
+            LlmCallGuard callGuard,
+            LlmMetrics llmMetrics
     ) {
         this.restClient = restClient;
         this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.callGuard = callGuard;
+        this.llmMetrics = llmMetrics;
     }
 
-    public AnalysisResultDto analyze(String medicalHistoryText, String treatmentPlanText) {
+    /**
+     * With {@code bypassCache} the LLM is called even if a response is cached, e.g. to pick up updated
+     * guidelines behind the same prompt; the fresh response then replaces the cached one.
+     */
+    public AnalysisResultDto analyze(String medicalHistoryText, String treatmentPlanText, boolean bypassCache) {
         String input = buildInput(medicalHistoryText, treatmentPlanText);
+
+        // Identical inputs for the same prompt are answered from cache without calling the LLM
+        String cachedResponse = bypassCache ? null : responseCache.lookup(promptId, input).orElse(null);
+        if (cachedResponse != null) {
+            return parseResponse(cachedResponse);
+        }
+
         log.info("Sending {} chars to Yandex Cloud LLM (prompt: {})", input.length(), promptId);
+        llmMetrics.recordInput("analysis", input);
 
         Map<String, Object> body = Map.of(
                 "prompt", Map.of("id", promptId),
@@ -59,7 +93,7 @@ public class YandexLlmService {
                 "stream", false
         );
 
-        String rawResponse = restClient.post()
+        String rawResponse = callGuard.call("analysis", () -> restClient.post()
                 .uri("/responses")
                 .header("Authorization", "Bearer " + apiKey)
                 .header("Content-Type", "application/json")
@@ -67,10 +101,134 @@ public class YandexLlmService {
                 .header("OpenAI-Project", project)
                 .body(body)
                 .retrieve()
-                .body(String.class);
+                .body(String.class));
 
         log.debug("Yandex Cloud raw response: {}", rawResponse);
-        return parseResponse(rawResponse);
+        llmMetrics.recordUsage("analysis", rawResponse);
+        AnalysisResultDto result = parseResponse(rawResponse);
+        responseCache.store(promptId, input, rawResponse);
+        return result;
+    }
+
+    /**
+     * Streaming variant of {@link #analyze} that always consults the cache: requests {@code "stream": true} and forwards every
+     * {@code response.output_text.delta} to {@code onDelta} as it arrives. The complete output is
+     * parsed and cached exactly like the blocking call once the stream ends.
+     */
+    public AnalysisResultDto analyzeStreaming(String medicalHistoryText, String treatmentPlanText,
+                                              Consumer<String> onDelta) {
+        String input = buildInput(medicalHistoryText, treatmentPlanText);
+
+        String cachedResponse = responseCache.lookup(promptId, input).orElse(null);
+        if (cachedResponse != null) {
+            onDelta.accept(outputTextOf(cachedResponse));
+            return parseResponse(cachedResponse);
+        }
+
+        log.info("Streaming {} chars to Yandex Cloud LLM (prompt: {})", input.length(), promptId);
+        llmMetrics.recordInput("analysis-stream", input);
+
+        Map<String, Object> body = Map.of(
+                "prompt", Map.of("id", promptId),
+                "input", input,
+                "stream", true
+        );
+
+        // Once text has reached the client a retry would repeat it, so only retry before the first delta
+        AtomicBoolean emitted = new AtomicBoolean();
+        Consumer<String> forwarded = delta -> {
+            emitted.set(true);
+            onDelta.accept(delta);
+        };
+        String rawResponse = callGuard.call("analysis-stream", () -> restClient.post()
+                .uri("/responses")
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .header("OpenAI-Project", project)
+                .body(body)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().is4xxClientError()) {
+                        throw HttpClientErrorException.create(response.getStatusCode(), response.getStatusText(),
+                                response.getHeaders(), response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                    if (response.getStatusCode().is5xxServerError()) {
+                        throw HttpServerErrorException.create(response.getStatusCode(), response.getStatusText(),
+                                response.getHeaders(), response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                    return readEventStream(response.getBody(), forwarded);
+                }), () -> !emitted.get());
+
+        log.debug("Yandex Cloud streamed response: {}", rawResponse);
+        llmMetrics.recordUsage("analysis-stream", rawResponse);
+        AnalysisResultDto result = parseResponse(rawResponse);
+        responseCache.store(promptId, input, rawResponse);
+        return result;
+    }
+
+    /**
+     * Reads a Responses API event stream. Events are {@code data:} lines separated by blank lines:
+     * <pre>
+     * data: {"type":"response.output_text.delta","delta":"..."}
+     * data: {"type":"response.completed","response":{ ...same shape as the blocking response... }}
+     * </pre>
+     * Returns the final response object as JSON, or an equivalent built from the deltas
+     * if the provider closed the stream without a completion event.
+     */
+    private String readEventStream(InputStream body, Consumer<String> onDelta) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        StringBuilder text = new StringBuilder();
+        StringBuilder data = new StringBuilder();
+        String completed = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                completed = handleEvent(data.toString(), text, onDelta, completed);
+                data.setLength(0);
+            } else if (line.startsWith("data:")) {
+                if (!data.isEmpty()) data.append('\n');
+                data.append(line.substring(5).stripLeading());
+            }
+        }
+        completed = handleEvent(data.toString(), text, onDelta, completed);
+
+        if (completed != null) return completed;
+        ObjectNode synthetic = objectMapper.createObjectNode();
+        synthetic.putArray("output").addObject().putArray("content").addObject().put("text", text.toString());
+        return objectMapper.writeValueAsString(synthetic);
+    }
+
+    private String handleEvent(String data, StringBuilder text, Consumer<String> onDelta, String completed)
+            throws IOException {
+        if (data.isBlank() || "[DONE]".equals(data)) return completed;
+        JsonNode event = objectMapper.readTree(data);
+        switch (event.path("type").asText()) {
+            case "response.output_text.delta" -> {
+                String delta = event.path("delta").asText("");
+                text.append(delta);
+                onDelta.accept(delta);
+            }
+            case "response.completed" -> {
+                return objectMapper.writeValueAsString(event.path("response"));
+            }
+            case "response.failed", "error" -> {
+                String message = event.path("response").path("error").path("message")
+                        .asText(event.path("message").asText("unknown error"));
+                throw new RuntimeException("Yandex LLM stream failed: " + message);
+            }
+            default -> {
+                // created / in_progress / output_item.* events carry nothing we need
+            }
+        }
+        return completed;
+    }
+
+    private String outputTextOf(String rawResponse) {
+        try {
+            return extractOutputText(objectMapper.readTree(rawResponse));
+        } catch (Exception e) {
+            return "";
+        }
     }
 
     private String buildInput(String medicalHistory, String treatmentPlan) {
@@ -90,7 +248,7 @@ public class YandexLlmService {
      *   "output": [{ "type": "message", "content": [{ "type": "output_text", "text": "..." }] }]
      * }
      */
-    private AnalysisResultDto parseResponse(String rawResponse) {
+    AnalysisResultDto parseResponse(String rawResponse) {
         try {
             JsonNode root = objectMapper.readTree(rawResponse);
             String text = extractOutputText(root);
@@ -1,21 +1,48 @@
 package com.gnegdev.path.auth.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.gnegdev.path.auth.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
-@RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, UserDetails> tokenUsers;
+
+    public UserDetailsServiceImpl(
+            UserRepository userRepository,
+            @Value("${app.jwt.user-cache.max-size}") long maxSize,
+            @Value("${app.jwt.user-cache.ttl}") Duration ttl
+    ) {
+        this.userRepository = userRepository;
+        this.tokenUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
 
+    /**
+     * Always reads the database — used by form login, which checks the stored password hash.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
+
+    /**
+     * Resolves the principal for an already verified JWT. Users are cached for a short TTL,
+     * so API calls don't pay a database round-trip each; unknown users are not cached.
+     */
+    public UserDetails loadTokenUser(String username) throws UsernameNotFoundException {
+        return tokenUsers.get(username, this::loadUserByUsername);
+    }
 }
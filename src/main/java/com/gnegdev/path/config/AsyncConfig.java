@@ -0,0 +1,126 @@
+package com.gnegdev.path.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${app.processing.core-pool-size}")
+    private int corePoolSize;
+
+    @Value("${app.processing.max-pool-size}")
+    private int maxPoolSize;
+
+    @Value("${app.analysis.stream.queue-capacity:20}")
+    private int streamQueueCapacity;
+
+    @Value("${app.extraction.pdf.parallel.parallelism:0}")
+    private int pdfParallelism;
+
+    @Value("${app.io.pool-size}")
+    private int ioPoolSize;
+
+    @Value("${app.io.queue-capacity}")
+    private int ioQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Bounded pool for background document processing (text extraction + LLM), fed by the job worker.
+     * It has no queue: a pool with one only grows past its core size once the queue is full, so jobs the
+     * worker claimed for free slots would wait in memory with their leases renewed. Without it every
+     * claimed job starts on one of up to {@code max-pool-size} threads or is rejected and released.
+     * With {@code spring.threads.virtual.enabled} every job gets its own virtual thread instead,
+     * still capped at {@code max-pool-size} concurrent jobs.
+     */
+    @Bean(name = "documentProcessingExecutor")
+    public TaskExecutor documentProcessingExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("doc-processing-", maxPoolSize, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("doc-processing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs streamed analyses for open SSE connections. Each task holds one LLM stream for its whole
+     * duration, so the pool is sized like the processing pool and rejects instead of queueing forever.
+     */
+    @Bean(name = "analysisStreamExecutor")
+    public TaskExecutor analysisStreamExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("analysis-stream-", maxPoolSize + streamQueueCapacity, true);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(streamQueueCapacity);
+        executor.setThreadNamePrefix("analysis-stream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Runs a document's per-file storage work (MinIO transfer and text extraction) next to the calling
+     * thread, so the medical history and the treatment plan are handled at the same time.
+     * When the pool and its queue are full the caller runs the task itself, which only costs the overlap.
+     */
+    @Bean(name = "documentIoExecutor")
+    public AsyncTaskExecutor documentIoExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("document-io-", ioPoolSize, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ioPoolSize);
+        executor.setMaxPoolSize(ioPoolSize);
+        executor.setQueueCapacity(ioQueueCapacity);
+        executor.setThreadNamePrefix("document-io-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Dedicated pool for page-range PDF extraction, kept apart from the common pool so
+     * CPU-heavy parsing cannot starve parallel streams elsewhere. Defaults to one thread per core.
+     */
+    @Bean(name = "pdfExtractionPool", destroyMethod = "shutdown")
+    public ForkJoinPool pdfExtractionPool() {
+        int parallelism = pdfParallelism > 0 ? pdfParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("pdf-extraction-" + counter.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String prefix, int concurrencyLimit, boolean rejectWhenFull) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setRejectTasksWhenLimitReached(rejectWhenFull);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
@@ -0,0 +1,40 @@
+package com.gnegdev.path.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Value("${app.limits.acquire-timeout}")
+    private Duration acquireTimeout;
+
+    @Bean(name = "llmConcurrencyLimiter")
+    public ConcurrencyLimiter llmConcurrencyLimiter(
+            @Value("${app.limits.llm.max-concurrent}") int maxConcurrent,
+            MeterRegistry meterRegistry
+    ) {
+        return register(new ConcurrencyLimiter("llm", maxConcurrent, acquireTimeout), meterRegistry);
+    }
+
+    @Bean(name = "minioConcurrencyLimiter")
+    public ConcurrencyLimiter minioConcurrencyLimiter(
+            @Value("${app.limits.minio.max-concurrent}") int maxConcurrent,
+            MeterRegistry meterRegistry
+    ) {
+        return register(new ConcurrencyLimiter("minio", maxConcurrent, acquireTimeout), meterRegistry);
+    }
+
+    private ConcurrencyLimiter register(ConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        Gauge.builder("path.limiter.in.use", limiter, l -> l.getMaxConcurrent() - l.getAvailablePermits())
+                .tag("name", limiter.getName())
+                .description("Calls currently holding a concurrency permit")
+                .register(meterRegistry);
+        return limiter;
+    }
+}
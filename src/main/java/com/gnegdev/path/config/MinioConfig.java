@@ -4,6 +4,7 @@ import io.minio.MinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class MinioConfig {
@@ -17,11 +18,31 @@ public class MinioConfig {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    @Value("${minio.public-endpoint}")
+    private String publicEndpoint;
+
+    @Value("${minio.region}")
+    private String region;
+
     @Bean
+    @Primary
     public MinioClient minioClient() {
         return MinioClient.builder()
                 .endpoint(endpoint)
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    /**
+     * Signs presigned URLs for browsers, so it uses the endpoint they can reach.
+     * The region is fixed because presigning otherwise asks the server for it first.
+     */
+    @Bean(name = "minioPresignClient")
+    public MinioClient minioPresignClient() {
+        return MinioClient.builder()
+                .endpoint(publicEndpoint)
+                .region(region)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
 }
@@ -1,10 +1,24 @@
 package com.gnegdev.path.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+
 @Configuration
 public class RestClientConfig {
 
@@ -14,17 +28,99 @@ public class RestClientConfig {
     @Value("${yandex.cloud.base-url}")
     private String yandexCloudBaseUrl;
 
+    @Value("${app.http-client.max-total}")
+    private int maxTotal;
+
+    @Value("${app.http-client.max-per-route}")
+    private int maxPerRoute;
+
+    @Value("${app.http-client.connect-timeout}")
+    private Duration connectTimeout;
+
+    @Value("${app.http-client.read-timeout}")
+    private Duration readTimeout;
+
+    @Value("${app.http-client.response-timeout}")
+    private Duration responseTimeout;
+
+    @Value("${app.http-client.connection-request-timeout}")
+    private Duration connectionRequestTimeout;
+
+    @Value("${app.http-client.idle-evict-after}")
+    private Duration idleEvictAfter;
+
+    @Value("${app.http-client.connection-ttl}")
+    private Duration connectionTtl;
+
+    @Value("${app.http-client.compression}")
+    private boolean compression;
+
     @Bean(name = "openRouterRestClient")
-    public RestClient openRouterRestClient() {
+    public RestClient openRouterRestClient(
+            @Qualifier("openRouterRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
         return RestClient.builder()
                 .baseUrl(openRouterBaseUrl)
+                .requestFactory(requestFactory)
                 .build();
     }
 
     @Bean(name = "yandexCloudRestClient")
-    public RestClient yandexCloudRestClient() {
+    public RestClient yandexCloudRestClient(
+            @Qualifier("yandexCloudRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
         return RestClient.builder()
                 .baseUrl(yandexCloudBaseUrl)
+                .requestFactory(requestFactory)
                 .build();
     }
+
+    /**
+     * The request factories are beans so the underlying client and its pool are closed on shutdown.
+     */
+    @Bean(name = "openRouterRequestFactory")
+    public HttpComponentsClientHttpRequestFactory openRouterRequestFactory(MeterRegistry meterRegistry) {
+        return pooledRequestFactory("openrouter", meterRegistry);
+    }
+
+    @Bean(name = "yandexCloudRequestFactory")
+    public HttpComponentsClientHttpRequestFactory yandexCloudRequestFactory(MeterRegistry meterRegistry) {
+        return pooledRequestFactory("yandex-cloud", meterRegistry);
+    }
+
+    /**
+     * Apache HttpClient with a keep-alive connection pool, so TLS sessions are reused across LLM calls
+     * instead of being renegotiated per request. Every phase has a timeout: waiting for a pooled
+     * connection, connecting, waiting for the first response byte, and idle gaps while reading,
+     * so a hung upstream fails the call instead of pinning its thread.
+     * The classic (blocking) client speaks HTTP/1.1 only; pooling is what removes the handshake cost.
+     */
+    private HttpComponentsClientHttpRequestFactory pooledRequestFactory(String name, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name)
+                .bindTo(meterRegistry);
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(responseTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEvictAfter));
+        if (!compression) {
+            builder.disableContentCompression();
+        }
+        CloseableHttpClient httpClient = builder.build();
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
 }
@@ -1,6 +1,7 @@
 package com.gnegdev.path.config;
 
 import com.gnegdev.path.auth.filter.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +36,8 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // SSE responses complete on an async re-dispatch that carries no JWT
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -64,6 +67,9 @@ public class SecurityConfig {
                                 "/assets/**",
                                 "/favicon.ico"
                         ).permitAll()
+                        // Liveness checks and Prometheus scraping. Actuator is served only on the management
+                        // port (management.server.port), which is not published; other endpoints need a login
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
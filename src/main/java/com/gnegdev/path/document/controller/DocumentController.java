@@ -1,17 +1,18 @@
 package com.gnegdev.path.document.controller;
 
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.dto.DocumentPage;
 import com.gnegdev.path.document.dto.DocumentResponse;
+import com.gnegdev.path.document.dto.DocumentStatusResponse;
 import com.gnegdev.path.document.service.DocumentService;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/documents")
 @RequiredArgsConstructor
@@ -21,7 +22,8 @@ public class DocumentController {
 
     /**
      * Upload medical history and (optionally) treatment plan files.
-     * The medical history is processed by LLM to extract structured data.
+     * Returns immediately with status {@code PENDING}; the medical history is then
+     * processed by LLM in the background. Poll {@code GET /api/documents/{id}/status}.
      *
      * @param medicalHistory Required. PDF or plain text file of the patient's medical history.
      * @param treatmentPlan  Optional. PDF or plain text file of the treatment plan.
@@ -30,20 +32,25 @@ public class DocumentController {
     public ResponseEntity<DocumentResponse> upload(
             @RequestParam("medicalHistory") @NotNull MultipartFile medicalHistory,
             @RequestParam(value = "treatmentPlan", required = false) MultipartFile treatmentPlan,
-            Authentication authentication
+            @AuthenticationPrincipal User user
     ) {
         DocumentResponse response = documentService.upload(
-                authentication.getName(), medicalHistory, treatmentPlan
+                user, medicalHistory, treatmentPlan
         );
-        return ResponseEntity.ok(response);
+        return ResponseEntity.accepted().body(response);
     }
 
     /**
-     * List all documents uploaded by the current user.
+     * List the current user's documents, newest first, one page at a time.
+     * Pass {@code nextCursor} from the previous page as {@code cursor} to continue.
      */
     @GetMapping
-    public ResponseEntity<List<DocumentResponse>> list(Authentication authentication) {
-        return ResponseEntity.ok(documentService.listDocuments(authentication.getName()));
+    public ResponseEntity<DocumentPage> list(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(documentService.listDocuments(user, cursor, limit));
     }
 
     /**
@@ -52,8 +59,32 @@ public class DocumentController {
     @GetMapping("/{id}")
     public ResponseEntity<DocumentResponse> get(
             @PathVariable Long id,
-            Authentication authentication
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(documentService.getDocument(id, user));
+    }
+
+    /**
+     * Get the processing status of a document without loading its extracted data.
+     */
+    @GetMapping("/{id}/status")
+    public ResponseEntity<DocumentStatusResponse> status(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(documentService.getStatus(id, user));
+    }
+
+    /**
+     * Delete a document with its extracted data and analysis. Stored files shared with
+     * the user's other documents (identical uploads) are kept until the last of them is deleted.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
     ) {
-        return ResponseEntity.ok(documentService.getDocument(id, authentication.getName()));
+        documentService.deleteDocument(id, user);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,46 @@
+package com.gnegdev.path.document.controller;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.dto.DocumentResponse;
+import com.gnegdev.path.document.dto.UploadSessionRequest;
+import com.gnegdev.path.document.dto.UploadSessionResponse;
+import com.gnegdev.path.document.service.UploadSessionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/documents/upload-sessions")
+@RequiredArgsConstructor
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    /**
+     * Start a direct upload. Returns a presigned MinIO PUT URL per file, with the headers
+     * the PUT must carry; then call {@code POST /api/documents/upload-sessions/{id}/complete}.
+     */
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> create(
+            @Valid @RequestBody UploadSessionRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(uploadSessionService.createSession(user, request));
+    }
+
+    /**
+     * Verify the uploaded files and queue the document for extraction, like {@code POST /api/documents/upload}.
+     * Safe to repeat: a completed session returns the same document.
+     */
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<DocumentResponse> complete(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.accepted().body(uploadSessionService.complete(id, user));
+    }
+}
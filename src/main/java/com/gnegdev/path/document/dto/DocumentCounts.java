@@ -0,0 +1,8 @@
+package com.gnegdev.path.document.dto;
+
+public record DocumentCounts(long total, long completed) {
+
+    public long pending() {
+        return total - completed;
+    }
+}
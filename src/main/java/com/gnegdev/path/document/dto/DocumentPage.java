@@ -0,0 +1,35 @@
+package com.gnegdev.path.document.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of the document list, newest first. {@code nextCursor} is an opaque token for the
+ * position after the last item, or {@code null} on the last page.
+ */
+public record DocumentPage(List<DocumentSummary> items, String nextCursor) {
+
+    /**
+     * Keyset position (created_at, id) of the last item on a page. Encoded as URL-safe Base64
+     * so clients treat it as opaque.
+     */
+    public record Cursor(LocalDateTime createdAt, Long id) {
+
+        public String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + token, e);
+            }
+        }
+    }
+}
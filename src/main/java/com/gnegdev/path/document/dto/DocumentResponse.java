@@ -1,6 +1,7 @@
 package com.gnegdev.path.document.dto;
 
 import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.extraction.dto.ExtractedDataDto;
 import com.gnegdev.path.extraction.entity.*;
 import lombok.Builder;
 import lombok.Data;
@@ -47,6 +48,9 @@ public class DocumentResponse {
         private List<ImagingResultResponse> imagingResults;
 
         public static PatientDataResponse from(PatientData data) {
+            if (data.getPayload() != null) {
+                return from(data.getId(), data.getPayload());
+            }
             return PatientDataResponse.builder()
                     .id(data.getId())
                     .fioInitials(data.getFioInitials())
@@ -64,6 +68,30 @@ public class DocumentResponse {
                             .map(ImagingResultResponse::from).toList())
                     .build();
         }
+
+        /** Rows stored as a JSONB document; entries have no ids of their own. */
+        private static PatientDataResponse from(Long id, ExtractedDataDto dto) {
+            return PatientDataResponse.builder()
+                    .id(id)
+                    .fioInitials(dto.getFioInitials())
+                    .dateOfBirth(dto.getDateOfBirth())
+                    .diagnosisPrimary(dto.getDiagnosisPrimary())
+                    .stage(dto.getStage())
+                    .subtype(dto.getSubtype())
+                    .treatmentHistory(orEmpty(dto.getTreatmentHistory()).stream()
+                            .map(TreatmentHistoryResponse::from).toList())
+                    .biopsyResults(orEmpty(dto.getBiopsyResults()).stream()
+                            .map(BiopsyResultResponse::from).toList())
+                    .consultations(orEmpty(dto.getConsultations()).stream()
+                            .map(ConsultationResponse::from).toList())
+                    .imagingResults(orEmpty(dto.getImagingResults()).stream()
+                            .map(ImagingResultResponse::from).toList())
+                    .build();
+        }
+
+        private static <T> List<T> orEmpty(List<T> list) {
+            return list != null ? list : List.of();
+        }
     }
 
     @Data
@@ -90,6 +118,18 @@ public class DocumentResponse {
                     .details(e.getDetails())
                     .build();
         }
+
+        public static TreatmentHistoryResponse from(ExtractedDataDto.TreatmentHistoryDto t) {
+            return TreatmentHistoryResponse.builder()
+                    .treatmentType(t.getTreatmentType())
+                    .description(t.getDescription())
+                    .startDate(t.getStartDate())
+                    .endDate(t.getEndDate())
+                    .outcomeDynamic(t.getOutcomeDynamic())
+                    .outcomeDate(t.getOutcomeDate())
+                    .details(t.getDetails())
+                    .build();
+        }
     }
 
     @Data
@@ -108,6 +148,14 @@ public class DocumentResponse {
                     .resultSummary(e.getResultSummary())
                     .build();
         }
+
+        public static BiopsyResultResponse from(ExtractedDataDto.BiopsyResultDto b) {
+            return BiopsyResultResponse.builder()
+                    .date(b.getDate())
+                    .type(b.getType())
+                    .resultSummary(b.getResultSummary())
+                    .build();
+        }
     }
 
     @Data
@@ -124,6 +172,13 @@ public class DocumentResponse {
                     .recommendation(e.getRecommendation())
                     .build();
         }
+
+        public static ConsultationResponse from(ExtractedDataDto.ConsultationDto c) {
+            return ConsultationResponse.builder()
+                    .date(c.getDate())
+                    .recommendation(c.getRecommendation())
+                    .build();
+        }
     }
 
     @Data
@@ -142,5 +197,13 @@ public class DocumentResponse {
                     .findings(e.getFindings())
                     .build();
         }
+
+        public static ImagingResultResponse from(ExtractedDataDto.ImagingResultDto i) {
+            return ImagingResultResponse.builder()
+                    .date(i.getDate())
+                    .type(i.getType())
+                    .findings(i.getFindings())
+                    .build();
+        }
     }
 }
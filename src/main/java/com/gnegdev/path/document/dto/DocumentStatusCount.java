@@ -0,0 +1,6 @@
+package com.gnegdev.path.document.dto;
+
+import com.gnegdev.path.document.entity.PatientDocument;
+
+public record DocumentStatusCount(PatientDocument.ProcessingStatus status, long count) {
+}
@@ -0,0 +1,13 @@
+package com.gnegdev.path.document.dto;
+
+import com.gnegdev.path.document.entity.PatientDocument;
+
+/**
+ * Lightweight projection used for status polling — no extracted data is loaded.
+ */
+public record DocumentStatusResponse(
+        Long id,
+        PatientDocument.ProcessingStatus status,
+        String errorMessage
+) {
+}
@@ -0,0 +1,30 @@
+package com.gnegdev.path.document.dto;
+
+import com.gnegdev.path.document.entity.PatientDocument;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the document list: the few columns the dashboard shows, read by a single projection query
+ * instead of loading each document with its extracted data and child collections.
+ */
+public record DocumentSummary(
+        Long id,
+        String status,
+        String medicalHistoryFilename,
+        String treatmentPlanFilename,
+        LocalDateTime createdAt,
+        String fioInitials,
+        String dateOfBirth,
+        String diagnosisPrimary,
+        String stage
+) {
+
+    /** Constructor used by the JPQL projection in {@code PatientDocumentRepository}. */
+    public DocumentSummary(Long id, PatientDocument.ProcessingStatus status, String medicalHistoryFilename,
+                           String treatmentPlanFilename, LocalDateTime createdAt, String fioInitials,
+                           String dateOfBirth, String diagnosisPrimary, String stage) {
+        this(id, status != null ? status.name() : null, medicalHistoryFilename, treatmentPlanFilename,
+                createdAt, fioInitials, dateOfBirth, diagnosisPrimary, stage);
+    }
+}
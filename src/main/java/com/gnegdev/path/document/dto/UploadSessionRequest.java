@@ -0,0 +1,27 @@
+package com.gnegdev.path.document.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Files the client is about to upload. The treatment plan is optional.
+ */
+public record UploadSessionRequest(
+        @NotNull @Valid FileSpec medicalHistory,
+        @Valid FileSpec treatmentPlan
+) {
+
+    /**
+     * @param sha256 base64-encoded SHA-256 of the file content, as sent in {@code x-amz-checksum-sha256}
+     */
+    public record FileSpec(
+            @NotBlank String filename,
+            @NotBlank String contentType,
+            @Positive long size,
+            @NotBlank @Pattern(regexp = "[A-Za-z0-9+/]{43}=") String sha256
+    ) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.gnegdev.path.document.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Presigned upload targets for a new session. Each file is sent as a {@code multipart/form-data}
+ * {@code POST uploadUrl} with exactly the listed fields followed by a {@code file} field,
+ * then the session is completed.
+ */
+public record UploadSessionResponse(
+        Long sessionId,
+        LocalDateTime expiresAt,
+        UploadTarget medicalHistory,
+        UploadTarget treatmentPlan
+) {
+
+    public record UploadTarget(String uploadUrl, Map<String, String> fields) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.gnegdev.path.document.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Normalized plain text extracted from a document's files at ingest time,
+ * so analysis never has to download and re-parse the originals.
+ * Kept out of {@link PatientDocument} so listing documents does not load the text.
+ */
+@Entity
+@Table(name = "document_texts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+public class DocumentText {
+
+    @Id
+    @ToString.Include
+    private Long documentId;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "bytea", nullable = false)
+    private String medicalHistory;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "bytea")
+    private String treatmentPlan;
+}
@@ -33,10 +33,13 @@ public class PatientDocument {
     private String medicalHistoryKey;
     private String medicalHistoryFilename;
     private String medicalHistoryContentType;
+    /** Lowercase hex SHA-256 of the file content, recorded at ingest. */
+    private String medicalHistorySha256;
 
     private String treatmentPlanKey;
     private String treatmentPlanFilename;
     private String treatmentPlanContentType;
+    private String treatmentPlanSha256;
 
     @Enumerated(EnumType.STRING)
     private ProcessingStatus status;
@@ -47,6 +50,13 @@ public class PatientDocument {
     @CreatedDate
     private LocalDateTime createdAt;
 
+    /**
+     * Optimistic lock: work done outside a transaction (extraction, analysis) is written back
+     * only if nobody changed the document in the meantime.
+     */
+    @Version
+    private Long version;
+
     @OneToOne(mappedBy = "document", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     private PatientData extractedData;
 
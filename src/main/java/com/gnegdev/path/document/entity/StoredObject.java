@@ -0,0 +1,50 @@
+package com.gnegdev.path.document.entity;
+
+import com.gnegdev.path.auth.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * One MinIO object per distinct file content of a user. Documents uploading the same bytes
+ * reference the same object; {@code refCount} is the number of documents doing so, and the
+ * object is deleted when the last of them is. A row exists only while {@code refCount > 0}.
+ */
+@Entity
+@Table(name = "stored_objects")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+@ToString(exclude = "user")
+public class StoredObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /** Lowercase hex SHA-256 of the content. */
+    @Column(nullable = false)
+    private String sha256;
+
+    @Column(nullable = false)
+    private String objectKey;
+
+    private Long size;
+    private String contentType;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
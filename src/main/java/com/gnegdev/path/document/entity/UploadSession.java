@@ -0,0 +1,73 @@
+package com.gnegdev.path.document.entity;
+
+import com.gnegdev.path.auth.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending direct upload: the object keys handed out as presigned PUT URLs, with the size,
+ * content type and SHA-256 the client declared for each file. Completing the session checks the
+ * stored objects against these values and creates the {@link PatientDocument}.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+@ToString(exclude = "user")
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private String medicalHistoryKey;
+    private String medicalHistoryFilename;
+    private String medicalHistoryContentType;
+    private Long medicalHistorySize;
+    private String medicalHistorySha256;
+
+    private String treatmentPlanKey;
+    private String treatmentPlanFilename;
+    private String treatmentPlanContentType;
+    private Long treatmentPlanSize;
+    private String treatmentPlanSha256;
+
+    /**
+     * Set once the session is completed; repeated completes return this document.
+     */
+    private Long documentId;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    /**
+     * Two concurrent completes of the same session must not both create a document.
+     */
+    @Version
+    private Long version;
+
+    public enum Status {
+        OPEN, COMPLETED, FAILED, EXPIRED
+    }
+}
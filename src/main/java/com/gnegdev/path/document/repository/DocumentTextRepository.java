@@ -0,0 +1,7 @@
+package com.gnegdev.path.document.repository;
+
+import com.gnegdev.path.document.entity.DocumentText;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DocumentTextRepository extends JpaRepository<DocumentText, Long> {
+}
@@ -1,15 +1,88 @@
 package com.gnegdev.path.document.repository;
 
 import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.dto.DocumentStatusCount;
+import com.gnegdev.path.document.dto.DocumentStatusResponse;
+import com.gnegdev.path.document.dto.DocumentSummary;
 import com.gnegdev.path.document.entity.PatientDocument;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PatientDocumentRepository extends JpaRepository<PatientDocument, Long> {
 
-    List<PatientDocument> findAllByUserOrderByCreatedAtDesc(User user);
+    /**
+     * First page of the user's documents, newest first. Served by
+     * {@code idx_patient_documents_user_created (user_id, created_at DESC, id DESC)}.
+     */
+    @Query("""
+            select new com.gnegdev.path.document.dto.DocumentSummary(
+                d.id, d.status, d.medicalHistoryFilename, d.treatmentPlanFilename, d.createdAt,
+                p.fioInitials, p.dateOfBirth, p.diagnosisPrimary, p.stage)
+            from PatientDocument d left join d.extractedData p
+            where d.user = :user
+            order by d.createdAt desc, d.id desc
+            """)
+    List<DocumentSummary> findSummariesByUser(@Param("user") User user, Limit limit);
+
+    /**
+     * Next page after the keyset position (createdAt, id); the id breaks ties between
+     * documents created in the same instant.
+     */
+    @Query("""
+            select new com.gnegdev.path.document.dto.DocumentSummary(
+                d.id, d.status, d.medicalHistoryFilename, d.treatmentPlanFilename, d.createdAt,
+                p.fioInitials, p.dateOfBirth, p.diagnosisPrimary, p.stage)
+            from PatientDocument d left join d.extractedData p
+            where d.user = :user
+              and (d.createdAt < :createdAt or (d.createdAt = :createdAt and d.id < :id))
+            order by d.createdAt desc, d.id desc
+            """)
+    List<DocumentSummary> findSummariesByUserBefore(
+            @Param("user") User user,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    long countByUser(User user);
+
+    long countByUserAndStatus(User user, PatientDocument.ProcessingStatus status);
+
+    /**
+     * Documents per processing status across all users, for the status gauges.
+     */
+    @Query("""
+            select new com.gnegdev.path.document.dto.DocumentStatusCount(d.status, count(d))
+            from PatientDocument d
+            group by d.status
+            """)
+    List<DocumentStatusCount> countByStatus();
 
     Optional<PatientDocument> findByIdAndUser(Long id, User user);
+
+    /**
+     * Latest document of the user with the same medical history whose extraction finished,
+     * so an identical upload can copy it instead of calling the LLM again.
+     */
+    Optional<PatientDocument> findFirstByUserAndMedicalHistorySha256AndStatusOrderByIdDesc(
+            User user, String medicalHistorySha256, PatientDocument.ProcessingStatus status);
+
+    Optional<DocumentStatusResponse> findStatusByIdAndUser(Long id, User user);
+
+    @Query("select d.id from PatientDocument d where d.user = :user and d.status = :status order by d.id")
+    List<Long> findIdsByUserAndStatus(@Param("user") User user,
+                                      @Param("status") PatientDocument.ProcessingStatus status,
+                                      Limit limit);
+
+    @Query("select d.id from PatientDocument d where d.user = :user and d.status = :status and d.id in :ids")
+    List<Long> findIdsByUserAndStatusAndIdIn(@Param("user") User user,
+                                             @Param("status") PatientDocument.ProcessingStatus status,
+                                             @Param("ids") Collection<Long> ids);
 }
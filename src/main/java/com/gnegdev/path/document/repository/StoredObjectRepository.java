@@ -0,0 +1,58 @@
+package com.gnegdev.path.document.repository;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.entity.StoredObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface StoredObjectRepository extends JpaRepository<StoredObject, Long> {
+
+    Optional<StoredObject> findByUserAndSha256(User user, String sha256);
+
+    /**
+     * Adds a reference to the user's object with this content. Returns 0 if there is none,
+     * including when the last reference was released by a transaction that committed first.
+     */
+    @Modifying
+    @Query("""
+            update StoredObject o set o.refCount = o.refCount + 1
+            where o.user = :user and o.sha256 = :sha256
+            """)
+    int retain(@Param("user") User user, @Param("sha256") String sha256);
+
+    /**
+     * Registers {@code objectKey} as the user's object for this content with one reference, or adds a
+     * reference to the object already registered, in one statement. Returns the key of the object
+     * that now holds the reference: a concurrent first upload of the same content gets the winner's key.
+     */
+    @Query(value = """
+            INSERT INTO stored_objects (user_id, sha256, object_key, size, content_type, ref_count, created_at)
+            VALUES (:userId, :sha256, :objectKey, :size, CAST(:contentType AS VARCHAR), 1, now())
+            ON CONFLICT (user_id, sha256) DO UPDATE SET ref_count = stored_objects.ref_count + 1
+            RETURNING object_key
+            """, nativeQuery = true)
+    String retainOrInsert(@Param("userId") Long userId,
+                          @Param("sha256") String sha256,
+                          @Param("objectKey") String objectKey,
+                          @Param("size") long size,
+                          @Param("contentType") String contentType);
+
+    /**
+     * Drops one reference, if {@code objectKey} is the shared object for this content.
+     * Returns 0 for objects that were never shared (uploaded before deduplication).
+     */
+    @Modifying
+    @Query("""
+            update StoredObject o set o.refCount = o.refCount - 1
+            where o.user = :user and o.sha256 = :sha256 and o.objectKey = :objectKey
+            """)
+    int release(@Param("user") User user, @Param("sha256") String sha256, @Param("objectKey") String objectKey);
+
+    @Modifying
+    @Query("delete from StoredObject o where o.user = :user and o.sha256 = :sha256 and o.refCount <= 0")
+    int deleteUnreferenced(@Param("user") User user, @Param("sha256") String sha256);
+}
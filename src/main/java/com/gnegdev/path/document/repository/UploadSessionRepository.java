@@ -0,0 +1,28 @@
+package com.gnegdev.path.document.repository;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.entity.UploadSession;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    Optional<UploadSession> findByIdAndUser(Long id, User user);
+
+    /**
+     * Sessions in the given status whose upload window ended before {@code cutoff}.
+     * Served by {@code idx_upload_sessions_status_expires (status, expires_at)}.
+     */
+    List<UploadSession> findByStatusAndExpiresAtBefore(UploadSession.Status status, LocalDateTime cutoff, Limit limit);
+
+    @Modifying
+    @Query("update UploadSession s set s.documentId = null where s.documentId = :documentId")
+    int detachDocument(@Param("documentId") Long documentId);
+}
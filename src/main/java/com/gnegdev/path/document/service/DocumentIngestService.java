@@ -0,0 +1,114 @@
+package com.gnegdev.path.document.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Single-pass ingest of an uploaded file. The request part is read once into a local spool file,
+ * hashing it on the way; the content hash decides whether the file is uploaded at all, and the
+ * MinIO upload and text extraction both read the spool, so neither touches the request or MinIO again.
+ * Handing the part over with {@code transferTo(Path)} instead would not save the write: Spring copies the
+ * part's stream for a {@code Path} destination, and hashing would then need its own read.
+ */
+@Service
+@Slf4j
+public class DocumentIngestService {
+
+    private final MinioStorageService minioStorage;
+    private final TextExtractionService textExtraction;
+    private final Path tempDir;
+
+    public DocumentIngestService(
+            MinioStorageService minioStorage,
+            TextExtractionService textExtraction,
+            @Value("${app.extraction.temp-dir:${java.io.tmpdir}}") String tempDir
+    ) {
+        this.minioStorage = minioStorage;
+        this.textExtraction = textExtraction;
+        this.tempDir = Path.of(tempDir);
+    }
+
+    /**
+     * An uploaded file spooled to disk. Closing it deletes the spool file.
+     *
+     * @param sha256 lowercase hex SHA-256 of the content
+     */
+    public record SpooledFile(Path path, String filename, String contentType, long size, String sha256)
+            implements AutoCloseable {
+
+        @Override
+        public void close() {
+            deleteSpool(path);
+        }
+    }
+
+    public SpooledFile spool(MultipartFile file) {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile(tempDir, "ingest-", ".tmp");
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new SpooledFile(spool, file.getOriginalFilename(), file.getContentType(), size,
+                    HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException | RuntimeException e) {
+            if (spool != null) {
+                deleteSpool(spool);
+            }
+            throw new RuntimeException("Failed to read uploaded file: " + file.getOriginalFilename(), e);
+        }
+    }
+
+    public void upload(String objectKey, SpooledFile file) {
+        try (InputStream in = Files.newInputStream(file.path())) {
+            minioStorage.uploadFile(objectKey, in, file.size(), file.contentType());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read spooled file: " + file.filename(), e);
+        }
+    }
+
+    /**
+     * Normalized text of the file, or {@code null} if extraction failed; the extraction job then
+     * extracts from MinIO and reports the error through the job queue.
+     */
+    public String extractText(SpooledFile file) {
+        try {
+            return textExtraction.normalize(
+                    textExtraction.extractText(file.path(), file.contentType(), file.filename()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Text extraction at ingest failed for {}, deferring to the extraction job: {}",
+                    file.filename(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static void deleteSpool(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Failed to delete ingest spool file {}: {}", spool, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
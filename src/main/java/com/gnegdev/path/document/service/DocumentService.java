@@ -1,115 +1,499 @@
 package com.gnegdev.path.document.service;
 
+import com.gnegdev.path.analysis.repository.AnalysisResultRepository;
 import com.gnegdev.path.auth.entity.User;
-import com.gnegdev.path.auth.repository.UserRepository;
+import com.gnegdev.path.document.dto.DocumentCounts;
+import com.gnegdev.path.document.dto.DocumentPage;
 import com.gnegdev.path.document.dto.DocumentResponse;
+import com.gnegdev.path.document.dto.DocumentStatusResponse;
+import com.gnegdev.path.document.dto.DocumentSummary;
+import com.gnegdev.path.document.entity.DocumentText;
 import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.document.repository.DocumentTextRepository;
 import com.gnegdev.path.document.repository.PatientDocumentRepository;
+import com.gnegdev.path.document.repository.UploadSessionRepository;
 import com.gnegdev.path.extraction.dto.ExtractedDataDto;
 import com.gnegdev.path.extraction.entity.*;
 import com.gnegdev.path.extraction.repository.PatientDataRepository;
 import com.gnegdev.path.extraction.service.LlmExtractionService;
-import lombok.RequiredArgsConstructor;
+import com.gnegdev.path.job.entity.ProcessingJob;
+import com.gnegdev.path.job.service.JobQueueService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DocumentService {
 
-    private final UserRepository userRepository;
     private final PatientDocumentRepository documentRepository;
     private final PatientDataRepository patientDataRepository;
+    private final DocumentTextRepository documentTextRepository;
     private final MinioStorageService minioStorage;
+    private final DocumentIngestService ingest;
+    private final StoredObjectService storedObjects;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final AnalysisResultRepository analysisResultRepository;
     private final TextExtractionService textExtraction;
     private final LlmExtractionService llmExtraction;
+    private final JobQueueService jobQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor ioExecutor;
 
-    @Transactional
-    public DocumentResponse upload(String username, MultipartFile medicalHistory, MultipartFile treatmentPlan) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    @Value("${app.extraction.storage-mode}")
+    private PatientData.StorageMode storageMode;
+
+    @Value("${app.documents.page-size}")
+    private int defaultPageSize;
+
+    @Value("${app.documents.max-page-size}")
+    private int maxPageSize;
+
+    public DocumentService(
+            PatientDocumentRepository documentRepository,
+            PatientDataRepository patientDataRepository,
+            DocumentTextRepository documentTextRepository,
+            MinioStorageService minioStorage,
+            DocumentIngestService ingest,
+            StoredObjectService storedObjects,
+            UploadSessionRepository uploadSessionRepository,
+            AnalysisResultRepository analysisResultRepository,
+            TextExtractionService textExtraction,
+            LlmExtractionService llmExtraction,
+            JobQueueService jobQueue,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Qualifier("documentIoExecutor") AsyncTaskExecutor ioExecutor) {
+        this.documentRepository = documentRepository;
+        this.patientDataRepository = patientDataRepository;
+        this.documentTextRepository = documentTextRepository;
+        this.minioStorage = minioStorage;
+        this.ingest = ingest;
+        this.storedObjects = storedObjects;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.analysisResultRepository = analysisResultRepository;
+        this.textExtraction = textExtraction;
+        this.llmExtraction = llmExtraction;
+        this.jobQueue = jobQueue;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * A file in MinIO about to be referenced by a new document.
+     *
+     * @param sha256   lowercase hex SHA-256 of the content
+     * @param uploaded whether {@code objectKey} was uploaded for this document, as opposed to being
+     *                 the user's existing object with the same content
+     */
+    record StoredFile(String objectKey, String filename, String contentType, long size, String sha256,
+                      boolean uploaded) {
+    }
+
+    /**
+     * A request file after ingest: where it is stored, and its normalized text ({@code null} if extraction failed).
+     */
+    private record IngestedFile(StoredFile stored, String text) {
+    }
 
-        // Upload medical history to MinIO
-        String historyKey = buildObjectKey(username, "medical-history", medicalHistory.getOriginalFilename());
+    /**
+     * Stores the files in MinIO, then persists the document as {@code PENDING} together with
+     * an extraction job in one short transaction. The job is picked up by the job worker.
+     * Each file is read from the request once, into a spool file that is hashed on the way; the two files
+     * are spooled, stored and extracted concurrently, and a failure of either stops and undoes the other. A file the
+     * user has uploaded before is not uploaded again, and a medical history that was already extracted
+     * is copied instead of going to the LLM. The text is stored with the document, so the job does not
+     * download the files again. The uploads run before the transaction so no database connection waits
+     * on MinIO; if the write fails, the objects just uploaded are removed again.
+     */
+    public DocumentResponse upload(User user, MultipartFile medicalHistory, MultipartFile treatmentPlan) {
+        boolean hasPlan = treatmentPlan != null && !treatmentPlan.isEmpty();
+
+        // The plan is ingested on the I/O pool while this thread ingests the history
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletableFuture<IngestedFile> planTask = hasPlan
+                ? CompletableFuture.supplyAsync(
+                        () -> ingestFile(user, "treatment-plan", treatmentPlan, abandoned), ioExecutor)
+                : CompletableFuture.completedFuture(null);
+
+        IngestedFile history;
         try {
-            minioStorage.uploadFile(historyKey, medicalHistory.getInputStream(),
-                    medicalHistory.getSize(), medicalHistory.getContentType());
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read medical history file", e);
+            history = ingestFile(user, "medical-history", medicalHistory, abandoned);
+        } catch (RuntimeException e) {
+            RuntimeException planError = discard(planTask);
+            // If the history stopped because the plan failed, the plan's error is the one to report
+            throw e instanceof CancellationException && planError != null ? planError : e;
+        }
+        IngestedFile plan;
+        try {
+            plan = planTask.join();
+        } catch (CompletionException e) {
+            deleteUploaded(history.stored());
+            throw planFailure(e);
         }
 
-        // Upload treatment plan to MinIO (optional)
-        String planKey = null;
-        if (treatmentPlan != null && !treatmentPlan.isEmpty()) {
-            planKey = buildObjectKey(username, "treatment-plan", treatmentPlan.getOriginalFilename());
-            try {
-                minioStorage.uploadFile(planKey, treatmentPlan.getInputStream(),
-                        treatmentPlan.getSize(), treatmentPlan.getContentType());
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read treatment plan file", e);
-            }
+        StoredFile planStored = plan != null ? plan.stored() : null;
+        PatientDocument doc;
+        try {
+            doc = registerFiles(user, history.stored(), planStored, history.text(),
+                    plan != null ? plan.text() : null, saved -> {
+                    });
+        } catch (RuntimeException e) {
+            deleteUploaded(history.stored());
+            deleteUploaded(planStored);
+            throw e;
         }
+        deleteIfSuperseded(history.stored(), doc.getMedicalHistoryKey());
+        deleteIfSuperseded(planStored, doc.getTreatmentPlanKey());
 
-        // Create document record with PROCESSING status
-        PatientDocument doc = PatientDocument.builder()
-                .user(user)
-                .medicalHistoryKey(historyKey)
-                .medicalHistoryFilename(medicalHistory.getOriginalFilename())
-                .medicalHistoryContentType(medicalHistory.getContentType())
-                .treatmentPlanKey(planKey)
-                .treatmentPlanFilename(treatmentPlan != null && !treatmentPlan.isEmpty()
-                        ? treatmentPlan.getOriginalFilename() : null)
-                .treatmentPlanContentType(treatmentPlan != null && !treatmentPlan.isEmpty()
-                        ? treatmentPlan.getContentType() : null)
-                .status(PatientDocument.ProcessingStatus.PROCESSING)
-                .build();
-        doc = documentRepository.save(doc);
+        log.info("Document {} stored, {}", doc.getId(),
+                doc.getStatus() == PatientDocument.ProcessingStatus.COMPLETED
+                        ? "extraction copied from an identical upload" : "queued for extraction");
+        return DocumentResponse.from(doc);
+    }
+
+    /**
+     * Spools, stores and extracts one request file. Once {@code abandoned} is set, because the other file
+     * failed, the work stops at the next step with a {@link CancellationException}; an object this call
+     * already uploaded is deleted whenever it fails. A failure here sets {@code abandoned} for the other file.
+     */
+    private IngestedFile ingestFile(User user, String type, MultipartFile file, AtomicBoolean abandoned) {
+        StoredFile stored = null;
+        try (DocumentIngestService.SpooledFile spooled = ingest.spool(file)) {
+            ensureNotAbandoned(abandoned);
+            stored = store(user, type, spooled);
+            ensureNotAbandoned(abandoned);
+            return new IngestedFile(stored, ingest.extractText(spooled));
+        } catch (RuntimeException e) {
+            abandoned.set(true);
+            deleteUploaded(stored);
+            throw e;
+        }
+    }
 
-        // Extract text from medical history and call LLM
+    private static void ensureNotAbandoned(AtomicBoolean abandoned) {
+        if (abandoned.get()) {
+            throw new CancellationException("Upload abandoned: the other file failed");
+        }
+    }
+
+    /**
+     * Waits for the plan after the history failed and deletes what it uploaded.
+     * Returns the plan's own failure, or {@code null} if it completed.
+     */
+    private RuntimeException discard(CompletableFuture<IngestedFile> planTask) {
         try {
-            String text = textExtraction.extractText(medicalHistory);
-            ExtractedDataDto dto = llmExtraction.extract(text);
-            PatientData patientData = buildPatientData(doc, dto);
+            IngestedFile plan = planTask.join();
+            if (plan != null) {
+                deleteUploaded(plan.stored());
+            }
+            return null;
+        } catch (CompletionException e) {
+            return planFailure(e);
+        }
+    }
+
+    private static RuntimeException planFailure(CompletionException e) {
+        return new RuntimeException("Failed to store treatment plan file", e.getCause());
+    }
+
+    /**
+     * Creates the document for files already in MinIO, in one short transaction that also takes
+     * the references on the stored objects and runs {@code inTransaction}. If the user has a completed
+     * document with the same medical history, its extracted data is copied and the document is
+     * {@code COMPLETED} right away; otherwise it is {@code PENDING} with an extraction job queued.
+     * Texts are stored only if every file has one; otherwise analysis extracts them later.
+     * Does not delete objects; see {@link #deleteIfSuperseded}.
+     */
+    PatientDocument registerFiles(User user, StoredFile history, StoredFile plan,
+                                  String historyText, String planText, Consumer<PatientDocument> inTransaction) {
+        Long extractedSourceId = documentRepository
+                .findFirstByUserAndMedicalHistorySha256AndStatusOrderByIdDesc(
+                        user, history.sha256(), PatientDocument.ProcessingStatus.COMPLETED)
+                .map(PatientDocument::getId)
+                .orElse(null);
+
+        return saveTimer("document-upload").record(() -> transactionTemplate.execute(status -> {
+            PatientDocument pending = PatientDocument.builder()
+                    .user(user)
+                    .medicalHistoryKey(storedObjects.retain(user, history))
+                    .medicalHistoryFilename(history.filename())
+                    .medicalHistoryContentType(history.contentType())
+                    .medicalHistorySha256(history.sha256())
+                    .treatmentPlanKey(plan != null ? storedObjects.retain(user, plan) : null)
+                    .treatmentPlanFilename(plan != null ? plan.filename() : null)
+                    .treatmentPlanContentType(plan != null ? plan.contentType() : null)
+                    .treatmentPlanSha256(plan != null ? plan.sha256() : null)
+                    .status(PatientDocument.ProcessingStatus.PENDING)
+                    .build();
+
+            PatientData source = extractedSourceId == null ? null : documentRepository.findById(extractedSourceId)
+                    .filter(d -> d.getStatus() == PatientDocument.ProcessingStatus.COMPLETED)
+                    .map(PatientDocument::getExtractedData)
+                    .orElse(null);
+            PatientDocument saved;
+            if (source != null) {
+                pending.setStatus(PatientDocument.ProcessingStatus.COMPLETED);
+                saved = documentRepository.save(pending);
+                PatientData copy = buildPatientData(saved, toDto(source), storageMode);
+                patientDataRepository.save(copy);
+                saved.setExtractedData(copy);
+                meterRegistry.counter("path.uploads.deduplicated", "kind", "extraction").increment();
+            } else {
+                saved = register(pending);
+            }
+
+            if (historyText != null && (plan == null || planText != null)) {
+                documentTextRepository.save(DocumentText.builder()
+                        .documentId(saved.getId())
+                        .medicalHistory(historyText)
+                        .treatmentPlan(planText)
+                        .build());
+            }
+            inTransaction.accept(saved);
+            return saved;
+        }));
+    }
+
+    /**
+     * Saves a new {@code PENDING} document whose files are already in MinIO and queues its extraction.
+     * Must run inside the caller's transaction so the document and its job commit together.
+     */
+    private PatientDocument register(PatientDocument pending) {
+        PatientDocument saved = documentRepository.save(pending);
+        jobQueue.enqueue(ProcessingJob.JobType.EXTRACTION, saved.getId());
+        return saved;
+    }
+
+    /**
+     * After a successful {@link #registerFiles}: removes an object uploaded for the document that lost
+     * to an identical one stored concurrently, so the document references the existing object instead.
+     */
+    void deleteIfSuperseded(StoredFile file, String referencedKey) {
+        if (file != null && file.uploaded() && !file.objectKey().equals(referencedKey)) {
+            minioStorage.deleteQuietly(file.objectKey());
+        }
+    }
+
+    /**
+     * Deletes the document with its extracted data, text and analysis. The stored files are removed
+     * from MinIO only when no other document references the same content.
+     */
+    public void deleteDocument(Long id, User user) {
+        List<String> unreferenced = transactionTemplate.execute(status -> {
+            PatientDocument doc = documentRepository.findByIdAndUser(id, user)
+                    .orElseThrow(() -> new RuntimeException("Document not found: " + id));
+            analysisResultRepository.findByDocumentId(id).ifPresent(analysisResultRepository::delete);
+            documentTextRepository.findById(id).ifPresent(documentTextRepository::delete);
+            uploadSessionRepository.detachDocument(id);
+            jobQueue.cancelQueued(id);
+            documentRepository.delete(doc);
+
+            List<String> keys = new ArrayList<>();
+            if (storedObjects.release(user, doc.getMedicalHistorySha256(), doc.getMedicalHistoryKey())) {
+                keys.add(doc.getMedicalHistoryKey());
+            }
+            if (doc.getTreatmentPlanKey() != null
+                    && storedObjects.release(user, doc.getTreatmentPlanSha256(), doc.getTreatmentPlanKey())) {
+                keys.add(doc.getTreatmentPlanKey());
+            }
+            return keys;
+        });
+        unreferenced.forEach(minioStorage::deleteQuietly);
+        log.info("Document {} deleted, {} stored file(s) removed", id, unreferenced.size());
+    }
+
+    /**
+     * Reuses the user's object with the same content if there is one; otherwise uploads the spooled file.
+     */
+    private StoredFile store(User user, String type, DocumentIngestService.SpooledFile file) {
+        Optional<String> existing = storedObjects.findKey(user, file.sha256());
+        if (existing.isPresent()) {
+            meterRegistry.counter("path.uploads.deduplicated", "kind", "object").increment();
+            log.info("Reusing stored object {} for identical {}", existing.get(), file.filename());
+            return new StoredFile(existing.get(), file.filename(), file.contentType(), file.size(), file.sha256(), false);
+        }
+        String key = buildObjectKey(user.getUsername(), type, file.filename());
+        ingest.upload(key, file);
+        return new StoredFile(key, file.filename(), file.contentType(), file.size(), file.sha256(), true);
+    }
+
+    private void deleteUploaded(StoredFile file) {
+        if (file != null && file.uploaded()) {
+            minioStorage.deleteQuietly(file.objectKey());
+        }
+    }
+
+    /**
+     * Runs text and LLM extraction for a stored document and moves it from {@code PROCESSING}
+     * to {@code COMPLETED}. Failures are rethrown so the job queue can retry; the document is
+     * marked {@code FAILED} only when the job is dead-lettered.
+     * Text and LLM extraction run outside any transaction; the final write is versioned, so it fails
+     * with an optimistic-lock error if the document was changed (e.g. dead-lettered) while extracting.
+     */
+    public void processDocument(Long documentId) {
+        PatientDocument doc = documentRepository.findById(documentId)
+                .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+        if (doc.getStatus() == PatientDocument.ProcessingStatus.COMPLETED) {
+            log.info("Document {} already processed, skipping", documentId);
+            return;
+        }
+
+        doc.setStatus(PatientDocument.ProcessingStatus.PROCESSING);
+        doc.setErrorMessage(null);
+        PatientDocument processing = documentRepository.save(doc);
+
+        // Extract and store plain text once; retries and later analyses reuse it
+        DocumentText text = loadOrExtractText(processing);
+        ExtractedDataDto dto = llmExtraction.extract(text.getMedicalHistory());
+
+        saveTimer("extraction-result").record(() -> transactionTemplate.executeWithoutResult(status -> {
+            PatientData patientData = buildPatientData(processing, dto, storageMode);
             patientDataRepository.save(patientData);
-            doc.setExtractedData(patientData);
-            doc.setStatus(PatientDocument.ProcessingStatus.COMPLETED);
-            log.info("Document {} processed successfully", doc.getId());
-        } catch (Exception e) {
-            log.error("Failed to process document {}: {}", doc.getId(), e.getMessage(), e);
+            processing.setExtractedData(patientData);
+            processing.setStatus(PatientDocument.ProcessingStatus.COMPLETED);
+            documentRepository.save(processing);
+        }));
+        log.info("Document {} processed successfully", documentId);
+    }
+
+    @Transactional
+    public void markFailed(Long documentId, String errorMessage) {
+        documentRepository.findById(documentId).ifPresent(doc -> {
             doc.setStatus(PatientDocument.ProcessingStatus.FAILED);
-            doc.setErrorMessage(e.getMessage());
+            doc.setErrorMessage(errorMessage);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentStatusResponse getStatus(Long id, User user) {
+        return documentRepository.findStatusByIdAndUser(id, user)
+                .orElseThrow(() -> new RuntimeException("Document not found: " + id));
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentPage listDocuments(User user, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.clamp(limit, 1, maxPageSize);
+
+        // One extra row tells whether there is a next page without a count query
+        Limit fetch = Limit.of(pageSize + 1);
+        List<DocumentSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = documentRepository.findSummariesByUser(user, fetch);
+        } else {
+            DocumentPage.Cursor after = DocumentPage.Cursor.decode(cursor);
+            rows = documentRepository.findSummariesByUserBefore(user, after.createdAt(), after.id(), fetch);
         }
 
-        doc = documentRepository.save(doc);
-        return DocumentResponse.from(doc);
+        if (rows.size() <= pageSize) {
+            return new DocumentPage(rows, null);
+        }
+        List<DocumentSummary> items = rows.subList(0, pageSize);
+        DocumentSummary last = items.getLast();
+        return new DocumentPage(List.copyOf(items), new DocumentPage.Cursor(last.createdAt(), last.id()).encode());
     }
 
     @Transactional(readOnly = true)
-    public List<DocumentResponse> listDocuments(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
-        return documentRepository.findAllByUserOrderByCreatedAtDesc(user).stream()
-                .map(DocumentResponse::from)
-                .toList();
+    public DocumentCounts countDocuments(User user) {
+        return new DocumentCounts(
+                documentRepository.countByUser(user),
+                documentRepository.countByUserAndStatus(user, PatientDocument.ProcessingStatus.COMPLETED)
+        );
     }
 
     @Transactional(readOnly = true)
-    public DocumentResponse getDocument(Long id, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    public DocumentResponse getDocument(Long id, User user) {
         PatientDocument doc = documentRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new RuntimeException("Document not found: " + id));
         return DocumentResponse.from(doc);
     }
 
-    private String buildObjectKey(String username, String type, String originalFilename) {
+    /**
+     * Returns the normalized text stored for a document at ingest time. Documents uploaded
+     * before text was persisted are extracted from MinIO once and backfilled; the plan is downloaded
+     * and extracted on the I/O pool alongside the history, and interrupted if the history fails.
+     */
+    public DocumentText loadOrExtractText(PatientDocument doc) {
+        return documentTextRepository.findById(doc.getId()).orElseGet(() -> {
+            Future<String> planTask = doc.getTreatmentPlanKey() != null
+                    ? ioExecutor.submit(() -> textExtraction.normalize(downloadAndExtract(doc.getTreatmentPlanKey(),
+                            doc.getTreatmentPlanContentType(), doc.getTreatmentPlanFilename())))
+                    : CompletableFuture.completedFuture(null);
+            String history;
+            try {
+                history = textExtraction.normalize(downloadAndExtract(doc.getMedicalHistoryKey(),
+                        doc.getMedicalHistoryContentType(), doc.getMedicalHistoryFilename()));
+            } catch (RuntimeException e) {
+                planTask.cancel(true);
+                throw e;
+            }
+            String plan = awaitText(planTask, doc.getTreatmentPlanKey());
+            DocumentText text = DocumentText.builder()
+                    .documentId(doc.getId())
+                    .medicalHistory(history)
+                    .treatmentPlan(plan)
+                    .build();
+            log.info("Stored extracted text for document {} ({} + {} chars)", doc.getId(),
+                    history.length(), plan != null ? plan.length() : 0);
+            return documentTextRepository.save(text);
+        });
+    }
+
+    private String downloadAndExtract(String minioKey, String contentType, String filename) {
+        try (InputStream in = minioStorage.downloadFile(minioKey)) {
+            return textExtraction.extractText(in, contentType, filename);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to extract text from MinIO object: " + minioKey, e);
+        }
+    }
+
+    private static String awaitText(Future<String> task, String minioKey) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while extracting text from MinIO object: " + minioKey, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to extract text from MinIO object: " + minioKey, e.getCause());
+        }
+    }
+
+    private Timer saveTimer(String operation) {
+        return Timer.builder("path.db.save")
+                .description("Duration of the write transaction that stores a pipeline result")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    static String buildObjectKey(String username, String type, String originalFilename) {
         String ext = "";
         if (originalFilename != null && originalFilename.contains(".")) {
             ext = originalFilename.substring(originalFilename.lastIndexOf('.'));
@@ -117,7 +501,58 @@ public class DocumentService {
         return username + "/" + type + "/" + UUID.randomUUID() + ext;
     }
 
-    private PatientData buildPatientData(PatientDocument doc, ExtractedDataDto dto) {
+    /**
+     * The extraction result held by {@code data}, whichever storage mode it was written in.
+     */
+    static ExtractedDataDto toDto(PatientData data) {
+        if (data.getPayload() != null) {
+            return data.getPayload();
+        }
+        ExtractedDataDto dto = new ExtractedDataDto();
+        dto.setFioInitials(data.getFioInitials());
+        dto.setDateOfBirth(data.getDateOfBirth());
+        dto.setDiagnosisPrimary(data.getDiagnosisPrimary());
+        dto.setStage(data.getStage());
+        dto.setSubtype(data.getSubtype());
+        dto.setTreatmentHistory(data.getTreatmentHistory().stream().map(e -> {
+            ExtractedDataDto.TreatmentHistoryDto t = new ExtractedDataDto.TreatmentHistoryDto();
+            t.setTreatmentType(e.getTreatmentType());
+            t.setDescription(e.getDescription());
+            t.setStartDate(e.getStartDate());
+            t.setEndDate(e.getEndDate());
+            t.setOutcomeDynamic(e.getOutcomeDynamic());
+            t.setOutcomeDate(e.getOutcomeDate());
+            t.setDetails(e.getDetails());
+            return t;
+        }).toList());
+        dto.setBiopsyResults(data.getBiopsyResults().stream().map(e -> {
+            ExtractedDataDto.BiopsyResultDto b = new ExtractedDataDto.BiopsyResultDto();
+            b.setDate(e.getDate());
+            b.setType(e.getType());
+            b.setResultSummary(e.getResultSummary());
+            return b;
+        }).toList());
+        dto.setConsultations(data.getConsultations().stream().map(e -> {
+            ExtractedDataDto.ConsultationDto c = new ExtractedDataDto.ConsultationDto();
+            c.setDate(e.getDate());
+            c.setRecommendation(e.getRecommendation());
+            return c;
+        }).toList());
+        dto.setImagingResults(data.getImagingResults().stream().map(e -> {
+            ExtractedDataDto.ImagingResultDto i = new ExtractedDataDto.ImagingResultDto();
+            i.setDate(e.getDate());
+            i.setType(e.getType());
+            i.setFindings(e.getFindings());
+            return i;
+        }).toList());
+        return dto;
+    }
+
+    /**
+     * Package-private and static so the JMH benchmarks can call it without a Spring context.
+     */
+    static PatientData buildPatientData(PatientDocument doc, ExtractedDataDto dto,
+                                        PatientData.StorageMode storageMode) {
         PatientData data = PatientData.builder()
                 .document(doc)
                 .fioInitials(dto.getFioInitials())
@@ -127,6 +562,11 @@ public class DocumentService {
                 .subtype(dto.getSubtype())
                 .build();
 
+        if (storageMode == PatientData.StorageMode.JSONB) {
+            data.setPayload(dto);
+            return data;
+        }
+
         if (dto.getTreatmentHistory() != null) {
             dto.getTreatmentHistory().forEach(t -> {
                 TreatmentHistoryEntry entry = TreatmentHistoryEntry.builder()
@@ -0,0 +1,53 @@
+package com.gnegdev.path.document.service;
+
+import com.gnegdev.path.document.dto.DocumentStatusCount;
+import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.document.repository.PatientDocumentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes {@code path.documents{status}}: the number of documents in each processing status.
+ * Counts are refreshed on a schedule with one grouped query rather than on every scrape.
+ * The values are global, so with several replicas every instance reports the same numbers.
+ */
+@Component
+@Slf4j
+public class DocumentStatusMetrics {
+
+    private final PatientDocumentRepository documentRepository;
+    private final Map<PatientDocument.ProcessingStatus, AtomicLong> counts =
+            new EnumMap<>(PatientDocument.ProcessingStatus.class);
+
+    public DocumentStatusMetrics(PatientDocumentRepository documentRepository, MeterRegistry meterRegistry) {
+        this.documentRepository = documentRepository;
+        for (PatientDocument.ProcessingStatus status : PatientDocument.ProcessingStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            counts.put(status, count);
+            Gauge.builder("path.documents", count, AtomicLong::get)
+                    .description("Documents by processing status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.metrics.document-status-refresh-ms}")
+    public void refresh() {
+        try {
+            Map<PatientDocument.ProcessingStatus, Long> current = new EnumMap<>(PatientDocument.ProcessingStatus.class);
+            for (DocumentStatusCount row : documentRepository.countByStatus()) {
+                current.put(row.status(), row.count());
+            }
+            counts.forEach((status, count) -> count.set(current.getOrDefault(status, 0L)));
+        } catch (Exception e) {
+            log.warn("Failed to refresh document status metrics: {}", e.getMessage());
+        }
+    }
+}
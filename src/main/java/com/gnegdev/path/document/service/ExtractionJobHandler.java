@@ -0,0 +1,28 @@
+package com.gnegdev.path.document.service;
+
+import com.gnegdev.path.job.entity.ProcessingJob;
+import com.gnegdev.path.job.service.JobHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ExtractionJobHandler implements JobHandler {
+
+    private final DocumentService documentService;
+
+    @Override
+    public ProcessingJob.JobType type() {
+        return ProcessingJob.JobType.EXTRACTION;
+    }
+
+    @Override
+    public void handle(ProcessingJob job) {
+        documentService.processDocument(job.getDocumentId());
+    }
+
+    @Override
+    public void onDeadLetter(ProcessingJob job) {
+        documentService.markFailed(job.getDocumentId(), job.getLastError());
+    }
+}
@@ -1,24 +1,63 @@
 package com.gnegdev.path.document.service;
 
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import com.gnegdev.path.config.ConcurrencyLimiter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class MinioStorageService {
 
     private final MinioClient minioClient;
+    private final MinioClient presignClient;
+    private final ConcurrencyLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary uploadSize;
 
     @Value("${minio.bucket}")
     private String bucket;
 
+    @Value("${minio.part-size}")
+    private DataSize partSize;
+
+    @Value("${minio.public-endpoint}")
+    private String publicEndpoint;
+
+    public MinioStorageService(
+            MinioClient minioClient,
+            @Qualifier("minioPresignClient") MinioClient presignClient,
+            @Qualifier("minioConcurrencyLimiter") ConcurrencyLimiter limiter,
+            MeterRegistry meterRegistry
+    ) {
+        this.minioClient = minioClient;
+        this.presignClient = presignClient;
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        this.uploadSize = DistributionSummary.builder("path.storage.upload.size")
+                .description("Size of objects uploaded to MinIO")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
     @PostConstruct
     public void ensureBucketExists() {
         try {
@@ -37,12 +76,132 @@ public class MinioStorageService {
         }
     }
 
+    /**
+     * Uploads {@code size} bytes from the stream, or everything up to its end when {@code size} is -1.
+     * Streams of unknown size are sent as a multipart upload of {@code minio.part-size} parts.
+     */
     public String uploadFile(String objectKey, InputStream inputStream, long size, String contentType) {
+        String key = limiter.call(() -> timed("upload", () -> putObject(objectKey, inputStream, size, contentType)));
+        if (size >= 0) {
+            uploadSize.record(size);
+        }
+        return key;
+    }
+
+    /**
+     * The returned stream holds a MinIO concurrency permit until it is closed.
+     * The download timer covers the request up to the response headers, not reading the body.
+     */
+    public InputStream downloadFile(String objectKey) {
+        return limiter.callStreaming(() -> timed("download", () -> getObject(objectKey)));
+    }
+
+    /**
+     * The returned stream holds a MinIO concurrency permit until it is closed.
+     * Reads {@code length} bytes starting at {@code offset}; MinIO serves only that range.
+     */
+    public InputStream downloadRange(String objectKey, long offset, long length) {
+        return limiter.callStreaming(() -> timed("download", () -> getObject(objectKey, offset, length)));
+    }
+
+    /**
+     * Object metadata as stored: size, content type, ETag, modification time and, if the upload
+     * sent one, the base64 SHA-256 checksum that MinIO verified on write.
+     */
+    public record ObjectStat(long size, String contentType, String checksumSha256, String etag, Instant lastModified) {
+    }
+
+    /**
+     * A browser form upload: POST {@code url} as {@code multipart/form-data} with {@code fields}, then the file.
+     */
+    public record PresignedPost(String url, Map<String, String> fields) {
+    }
+
+    /**
+     * Lets a client POST one object directly to MinIO until the policy expires. Unlike a presigned PUT URL,
+     * the signed policy pins the exact size, content type and checksum, so MinIO rejects any other body
+     * instead of storing it. Signing is local; no request is made to MinIO.
+     */
+    public PresignedPost presignedPost(String objectKey, Duration expiry, long size, String contentType,
+                                       String checksumSha256) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("key", objectKey);
+        fields.put("Content-Type", contentType);
+        fields.put("x-amz-checksum-sha256", checksumSha256);
+        PostPolicy policy = new PostPolicy(bucket, ZonedDateTime.now().plus(expiry));
+        fields.forEach(policy::addEqualsCondition);
+        policy.addContentLengthRangeCondition(size, size);
+        try {
+            fields.putAll(presignClient.getPresignedPostFormData(policy));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to presign upload policy: " + objectKey, e);
+        }
+        String endpoint = publicEndpoint.endsWith("/") ? publicEndpoint : publicEndpoint + "/";
+        return new PresignedPost(endpoint + bucket, fields);
+    }
+
+    /**
+     * URL that lets a client GET one object directly from MinIO until it expires. MinIO answers with
+     * the given {@code Content-Disposition} and {@code Content-Type}, so the browser keeps the original filename.
+     */
+    public String presignedGetUrl(String objectKey, Duration expiry, String contentDisposition, String contentType) {
+        try {
+            return presignClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(bucket)
+                    .object(objectKey)
+                    .expiry((int) expiry.toSeconds())
+                    .extraQueryParams(Map.of(
+                            "response-content-disposition", contentDisposition,
+                            "response-content-type", contentType))
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to presign download URL: " + objectKey, e);
+        }
+    }
+
+    /**
+     * Metadata of an object without reading its content, or empty if it does not exist.
+     */
+    public Optional<ObjectStat> statFile(String objectKey) {
+        return limiter.call(() -> timed("stat", () -> statObject(objectKey)));
+    }
+
+    /**
+     * Best-effort removal, used to clean up objects whose database write failed.
+     */
+    public void deleteQuietly(String objectKey) {
+        try {
+            limiter.call(() -> timed("delete", () -> removeObject(objectKey)));
+            log.info("Removed orphaned MinIO object: {}", objectKey);
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove MinIO object {}: {}", objectKey, e.getMessage());
+        }
+    }
+
+    private <T> T timed(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("path.storage.requests")
+                    .description("Latency of MinIO object requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private String putObject(String objectKey, InputStream inputStream, long size, String contentType) {
         try {
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(bucket)
                     .object(objectKey)
-                    .stream(inputStream, size, -1)
+                    .stream(inputStream, size, size >= 0 ? -1 : partSize.toBytes())
                     .contentType(contentType != null ? contentType : "application/octet-stream")
                     .build());
             log.info("Uploaded file to MinIO: {}", objectKey);
@@ -52,7 +211,7 @@ public class MinioStorageService {
         }
     }
 
-    public InputStream downloadFile(String objectKey) {
+    private InputStream getObject(String objectKey) {
         try {
             return minioClient.getObject(GetObjectArgs.builder()
                     .bucket(bucket)
@@ -62,4 +221,48 @@ public class MinioStorageService {
             throw new RuntimeException("Failed to download file from MinIO: " + objectKey, e);
         }
     }
+
+    private InputStream getObject(String objectKey, long offset, long length) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(objectKey)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download file range from MinIO: " + objectKey, e);
+        }
+    }
+
+    private String removeObject(String objectKey) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(objectKey)
+                    .build());
+            return objectKey;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to remove file from MinIO: " + objectKey, e);
+        }
+    }
+
+    private Optional<ObjectStat> statObject(String objectKey) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(objectKey)
+                    .extraHeaders(Map.of("x-amz-checksum-mode", "ENABLED"))
+                    .build());
+            return Optional.of(new ObjectStat(stat.size(), stat.contentType(),
+                    stat.headers().get("x-amz-checksum-sha256"), stat.etag(), stat.lastModified().toInstant()));
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return Optional.empty();
+            }
+            throw new RuntimeException("Failed to stat MinIO object: " + objectKey, e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to stat MinIO object: " + objectKey, e);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.gnegdev.path.document.service;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.entity.StoredObject;
+import com.gnegdev.path.document.repository.StoredObjectRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Reference counting of {@link StoredObject}s. {@link #retain} and {@link #release} run in the
+ * caller's transaction, next to the document row that holds the reference. Both lock the row
+ * through their update, so a reference is never added to an object whose deletion has committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class StoredObjectService {
+
+    private final StoredObjectRepository repository;
+
+    /**
+     * Key of the user's stored object with this content, if any. Only a hint: the object can still be
+     * released before the caller's transaction retains it.
+     */
+    public Optional<String> findKey(User user, String sha256) {
+        return repository.findByUserAndSha256(user, sha256).map(StoredObject::getObjectKey);
+    }
+
+    /**
+     * Adds a reference to the user's object with this content and returns its key. If there is none,
+     * an uploaded {@code file} becomes that object; when two first uploads of the same content race,
+     * both get the key of the one registered first, and the other upload is superseded. A file that was
+     * not uploaded (the caller expected to reuse an object that has since been deleted) fails instead;
+     * the upload then has to be repeated.
+     */
+    String retain(User user, DocumentService.StoredFile file) {
+        if (file.uploaded()) {
+            return repository.retainOrInsert(user.getId(), file.sha256(), file.objectKey(), file.size(),
+                    file.contentType());
+        }
+        if (repository.retain(user, file.sha256()) == 0) {
+            throw new IllegalStateException("Stored copy of " + file.filename() + " was deleted meanwhile, upload it again");
+        }
+        return repository.findByUserAndSha256(user, file.sha256()).orElseThrow().getObjectKey();
+    }
+
+    /**
+     * Drops a document's reference to {@code objectKey}. Returns {@code true} if nothing references
+     * the object any more and it should be deleted from MinIO once the transaction commits.
+     * Files stored before deduplication (no hash, or not the shared object) belong to their document alone.
+     */
+    boolean release(User user, String sha256, String objectKey) {
+        if (sha256 == null || repository.release(user, sha256, objectKey) == 0) {
+            return true;
+        }
+        return repository.deleteUnreferenced(user, sha256) > 0;
+    }
+}
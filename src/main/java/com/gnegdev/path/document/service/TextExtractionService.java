@@ -1,44 +1,236 @@
 package com.gnegdev.path.document.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.unit.DataSize;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * Extracts plain text from uploaded documents.
+ * PDFs are parsed from a file on disk with a capped main-memory budget; anything above the cap
+ * goes to PDFBox scratch files, so a large upload never has to fit on the heap as a byte array.
+ * Long PDFs can be split into page ranges that are extracted in parallel on a dedicated pool; the ranges
+ * share that budget, so a parallel extraction holds no more of the document on the heap than a sequential one.
+ */
 @Service
 @Slf4j
 public class TextExtractionService {
 
-    public String extractText(MultipartFile file) throws IOException {
-        String contentType = file.getContentType();
-        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+    private final DataSize maxMainMemory;
+    private final int pageBatchSize;
+    private final File tempDir;
+    private final ForkJoinPool pdfExtractionPool;
+    private final boolean parallelEnabled;
+    private final int parallelThresholdPages;
+    private final int maxRangesPerDocument;
+    private final DataSize minRangeMainMemory;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary pdfPages;
 
-        if ("application/pdf".equals(contentType) || filename.endsWith(".pdf")) {
-            return extractFromPdf(file.getBytes());
+    public TextExtractionService(
+            @Value("${app.extraction.pdf.max-main-memory}") DataSize maxMainMemory,
+            @Value("${app.extraction.pdf.page-batch-size}") int pageBatchSize,
+            @Value("${app.extraction.temp-dir:${java.io.tmpdir}}") String tempDir,
+            @Qualifier("pdfExtractionPool") ForkJoinPool pdfExtractionPool,
+            @Value("${app.extraction.pdf.parallel.enabled}") boolean parallelEnabled,
+            @Value("${app.extraction.pdf.parallel.threshold-pages}") int parallelThresholdPages,
+            @Value("${app.extraction.pdf.parallel.max-ranges-per-document}") int maxRangesPerDocument,
+            @Value("${app.extraction.pdf.parallel.min-range-main-memory}") DataSize minRangeMainMemory,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxMainMemory = maxMainMemory;
+        this.pageBatchSize = Math.max(1, pageBatchSize);
+        this.tempDir = new File(tempDir);
+        this.pdfExtractionPool = pdfExtractionPool;
+        this.parallelEnabled = parallelEnabled;
+        this.parallelThresholdPages = parallelThresholdPages;
+        this.maxRangesPerDocument = maxRangesPerDocument;
+        this.minRangeMainMemory = minRangeMainMemory;
+        this.meterRegistry = meterRegistry;
+        this.pdfPages = DistributionSummary.builder("path.extraction.pdf.pages")
+                .description("Pages per extracted PDF")
+                .baseUnit("pages")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Spools the stream to a temporary file and extracts from there.
+     * The stream is consumed but not closed.
+     */
+    public String extractText(InputStream in, String contentType, String originalFilename) throws IOException {
+        Path spool = Files.createTempFile(tempDir.toPath(), "extract-", ".tmp");
+        try {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            return extractText(spool, contentType, originalFilename);
+        } finally {
+            Files.deleteIfExists(spool);
         }
+    }
 
+    public String extractText(Path file, String contentType, String originalFilename) throws IOException {
+        if (isPdf(contentType, originalFilename)) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            int pages;
+            int ranges;
+            try (PDDocument document = loadPdf(file, maxMainMemory.toBytes())) {
+                pages = document.getNumberOfPages();
+                ranges = parallelRanges(pages);
+                if (ranges < 2) {
+                    return recordPdf(sample, "sequential", pages, extractFromPdf(document));
+                }
+            }
+            return recordPdf(sample, "parallel", pages, extractFromPdfParallel(file, pages, ranges));
+        }
         // Plain text, TXT, or unknown — read as UTF-8
-        return new String(file.getBytes(), StandardCharsets.UTF_8);
+        return recordText(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Normalizes extracted text before it is stored or sent to the LLM: unifies line endings,
+     * drops trailing whitespace and NUL characters, and collapses runs of blank lines.
+     */
+    public String normalize(String text) {
+        if (text == null) return null;
+        return text
+                .replace("\0", "")
+                .replace("\r\n", "\n")
+                .replace('\r', '\n')
+                .replaceAll("[ \\t\\u00A0]+\n", "\n")
+                .replaceAll("\n{3,}", "\n\n")
+                .strip();
+    }
+
+    private String recordPdf(Timer.Sample sample, String mode, int pages, String text) {
+        sample.stop(Timer.builder("path.extraction.pdf")
+                .description("Time to extract text from a PDF")
+                .tag("mode", mode)
+                .register(meterRegistry));
+        pdfPages.record(pages);
+        textChars("pdf").record(text.length());
+        return text;
+    }
+
+    private String recordText(String text) {
+        textChars("text").record(text.length());
+        return text;
     }
 
-    public String extractText(byte[] bytes, String contentType) throws IOException {
-        if ("application/pdf".equals(contentType)) {
-            return extractFromPdf(bytes);
+    private DistributionSummary textChars(String format) {
+        return DistributionSummary.builder("path.extraction.text.chars")
+                .description("Characters of text extracted per file")
+                .baseUnit("chars")
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Number of ranges a PDF is split into, below 2 for sequential extraction. Every range parses its own
+     * copy of the document, so the count is capped per document and by how many copies fit the
+     * {@code max-main-memory} budget with at least {@code min-range-main-memory} each.
+     */
+    private int parallelRanges(int pages) {
+        if (!parallelEnabled || pages < parallelThresholdPages || pages <= pageBatchSize) {
+            return 1;
+        }
+        long batches = (pages + pageBatchSize - 1) / pageBatchSize;
+        long affordable = maxMainMemory.toBytes() / Math.max(1, minRangeMainMemory.toBytes());
+        return (int) Math.min(Math.min(batches, maxRangesPerDocument), affordable);
+    }
+
+    private PDDocument loadPdf(Path file, long mainMemoryBytes) throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(mainMemoryBytes)
+                .setTempDir(tempDir);
+        return Loader.loadPDF(file.toFile(), memory.streamCache);
+    }
+
+    private boolean isPdf(String contentType, String originalFilename) {
+        String filename = originalFilename != null ? originalFilename.toLowerCase() : "";
+        return "application/pdf".equals(contentType) || filename.endsWith(".pdf");
+    }
+
+    /**
+     * Strips text in page batches into a single writer, so page content streams are parsed
+     * and released incrementally instead of all at once.
+     */
+    private String extractFromPdf(PDDocument document) throws IOException {
+        int pages = document.getNumberOfPages();
+        String text = stripPages(document, 1, pages);
+        log.info("Extracted {} characters from {} PDF pages", text.length(), pages);
+        return text;
+    }
+
+    private String stripPages(PDDocument document, int first, int last) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        StringWriter out = new StringWriter();
+        for (int start = first; start <= last; start += pageBatchSize) {
+            stripper.setStartPage(start);
+            stripper.setEndPage(Math.min(start + pageBatchSize - 1, last));
+            stripper.writeText(document, out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Splits the document into {@code rangeCount} contiguous page ranges, aligned to {@code page-batch-size},
+     * and strips them concurrently. {@link PDDocument} is not thread-safe, so every range opens its own
+     * instance of the file, with an equal share of the main-memory budget; results are joined in page order.
+     */
+    private String extractFromPdfParallel(Path file, int pages, int rangeCount) throws IOException {
+        int batches = (pages + pageBatchSize - 1) / pageBatchSize;
+        int batchesPerRange = (batches + rangeCount - 1) / rangeCount;
+        long rangeMemory = maxMainMemory.toBytes() / rangeCount;
+
+        List<ForkJoinTask<String>> ranges = new ArrayList<>();
+        for (int start = 1; start <= pages; start += batchesPerRange * pageBatchSize) {
+            int first = start;
+            int last = Math.min(start + batchesPerRange * pageBatchSize - 1, pages);
+            ranges.add(pdfExtractionPool.submit(() -> extractPageRange(file, first, last, rangeMemory)));
+        }
+
+        StringBuilder text = new StringBuilder();
+        try {
+            for (ForkJoinTask<String> range : ranges) {
+                text.append(range.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ranges.forEach(r -> r.cancel(true));
+            throw new IOException("Interrupted during parallel PDF extraction", e);
+        } catch (ExecutionException e) {
+            ranges.forEach(r -> r.cancel(true));
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Parallel PDF extraction failed", e.getCause());
         }
-        return new String(bytes, StandardCharsets.UTF_8);
+        log.info("Extracted {} characters from {} PDF pages in {} parallel ranges",
+                text.length(), pages, ranges.size());
+        return text.toString();
     }
 
-    private String extractFromPdf(byte[] bytes) throws IOException {
-        try (PDDocument document = Loader.loadPDF(bytes)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-            log.info("Extracted {} characters from PDF", text.length());
-            return text;
+    private String extractPageRange(Path file, int first, int last, long mainMemoryBytes) throws IOException {
+        try (PDDocument document = loadPdf(file, mainMemoryBytes)) {
+            return stripPages(document, first, last);
         }
     }
 }
@@ -0,0 +1,231 @@
+package com.gnegdev.path.document.service;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.dto.DocumentResponse;
+import com.gnegdev.path.document.dto.UploadSessionRequest;
+import com.gnegdev.path.document.dto.UploadSessionResponse;
+import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.document.entity.UploadSession;
+import com.gnegdev.path.document.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Uploads that go from the client straight to MinIO. A session hands out presigned POST policies, which
+ * make MinIO refuse a file of another size, type or checksum than the client declared; completing it checks the stored objects against what the client declared (size, content type,
+ * SHA-256) with metadata requests only, then registers the document like a multipart upload would,
+ * including deduplication against files the user already stored.
+ * File content never passes through the application.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSessionService {
+
+    private final UploadSessionRepository sessionRepository;
+    private final DocumentService documentService;
+    private final MinioStorageService minioStorage;
+
+    @Value("${app.uploads.max-file-size}")
+    private DataSize maxFileSize;
+
+    @Value("${app.uploads.url-expiry}")
+    private Duration urlExpiry;
+
+    @Value("${app.uploads.session-ttl}")
+    private Duration sessionTtl;
+
+    @Value("${app.uploads.purge-batch-size}")
+    private int purgeBatchSize;
+
+    public UploadSessionResponse createSession(User user, UploadSessionRequest request) {
+        UploadSessionRequest.FileSpec history = request.medicalHistory();
+        UploadSessionRequest.FileSpec plan = request.treatmentPlan();
+        checkSize(history);
+        if (plan != null) {
+            checkSize(plan);
+        }
+
+        UploadSession.UploadSessionBuilder builder = UploadSession.builder()
+                .user(user)
+                .status(UploadSession.Status.OPEN)
+                .medicalHistoryKey(DocumentService.buildObjectKey(user.getUsername(), "medical-history", history.filename()))
+                .medicalHistoryFilename(history.filename())
+                .medicalHistoryContentType(history.contentType())
+                .medicalHistorySize(history.size())
+                .medicalHistorySha256(history.sha256())
+                .expiresAt(LocalDateTime.now().plus(sessionTtl));
+        if (plan != null) {
+            builder.treatmentPlanKey(DocumentService.buildObjectKey(user.getUsername(), "treatment-plan", plan.filename()))
+                    .treatmentPlanFilename(plan.filename())
+                    .treatmentPlanContentType(plan.contentType())
+                    .treatmentPlanSize(plan.size())
+                    .treatmentPlanSha256(plan.sha256());
+        }
+        UploadSession session = sessionRepository.save(builder.build());
+
+        log.info("Upload session {} opened for {}", session.getId(), user.getUsername());
+        return new UploadSessionResponse(
+                session.getId(),
+                session.getExpiresAt(),
+                target(session.getMedicalHistoryKey(), history),
+                plan != null ? target(session.getTreatmentPlanKey(), plan) : null
+        );
+    }
+
+    /**
+     * Verifies the uploaded objects and creates the document, as {@link DocumentService#upload} does.
+     * Idempotent: completing an already completed session returns its document. An object that is
+     * missing leaves the session open so the client can finish the upload and retry; one that does
+     * not match its declaration fails the session and is deleted.
+     */
+    public DocumentResponse complete(Long sessionId, User user) {
+        UploadSession session = sessionRepository.findByIdAndUser(sessionId, user)
+                .orElseThrow(() -> new RuntimeException("Upload session not found: " + sessionId));
+
+        switch (session.getStatus()) {
+            case COMPLETED -> {
+                return documentService.getDocument(session.getDocumentId(), user);
+            }
+            case FAILED, EXPIRED -> throw new IllegalStateException(
+                    "Upload session " + sessionId + " is " + session.getStatus() + ": " + session.getErrorMessage());
+            case OPEN -> {
+            }
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            close(session, UploadSession.Status.EXPIRED, "Upload session expired");
+            throw new IllegalStateException("Upload session " + sessionId + " expired");
+        }
+
+        String problem = verify("medical history", session.getMedicalHistoryKey(), session.getMedicalHistorySize(),
+                session.getMedicalHistoryContentType(), session.getMedicalHistorySha256());
+        if (problem == null && session.getTreatmentPlanKey() != null) {
+            problem = verify("treatment plan", session.getTreatmentPlanKey(), session.getTreatmentPlanSize(),
+                    session.getTreatmentPlanContentType(), session.getTreatmentPlanSha256());
+        }
+        if (problem != null) {
+            close(session, UploadSession.Status.FAILED, problem);
+            throw new IllegalStateException("Upload verification failed: " + problem);
+        }
+
+        DocumentService.StoredFile history = new DocumentService.StoredFile(session.getMedicalHistoryKey(),
+                session.getMedicalHistoryFilename(), session.getMedicalHistoryContentType(),
+                session.getMedicalHistorySize(), hex(session.getMedicalHistorySha256()), true);
+        DocumentService.StoredFile plan = session.getTreatmentPlanKey() == null ? null
+                : new DocumentService.StoredFile(session.getTreatmentPlanKey(),
+                        session.getTreatmentPlanFilename(), session.getTreatmentPlanContentType(),
+                        session.getTreatmentPlanSize(), hex(session.getTreatmentPlanSha256()), true);
+        PatientDocument doc;
+        try {
+            // The versioned session update lets only one concurrent complete create the document
+            doc = documentService.registerFiles(user, history, plan, null, null, saved -> {
+                session.setStatus(UploadSession.Status.COMPLETED);
+                session.setDocumentId(saved.getId());
+                sessionRepository.save(session);
+            });
+        } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+            UploadSession current = sessionRepository.findById(sessionId).orElseThrow(() -> e);
+            if (current.getStatus() != UploadSession.Status.COMPLETED) {
+                throw e;
+            }
+            return documentService.getDocument(current.getDocumentId(), user);
+        }
+        // An identical file the user had already stored is referenced instead of this upload
+        documentService.deleteIfSuperseded(history, doc.getMedicalHistoryKey());
+        documentService.deleteIfSuperseded(plan, doc.getTreatmentPlanKey());
+
+        log.info("Upload session {} completed as document {} ({})", sessionId, doc.getId(), doc.getStatus());
+        return DocumentResponse.from(doc);
+    }
+
+    /**
+     * Expires sessions that were never completed and removes whatever was uploaded for them.
+     */
+    @Scheduled(fixedDelayString = "${app.uploads.purge-interval-ms}")
+    public void purgeExpired() {
+        List<UploadSession> expired = sessionRepository.findByStatusAndExpiresAtBefore(
+                UploadSession.Status.OPEN, LocalDateTime.now(), Limit.of(purgeBatchSize));
+        for (UploadSession session : expired) {
+            try {
+                close(session, UploadSession.Status.EXPIRED, "Upload session expired");
+            } catch (ObjectOptimisticLockingFailureException e) {
+                log.debug("Upload session {} changed while expiring, skipped", session.getId());
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Expired {} abandoned upload sessions", expired.size());
+        }
+    }
+
+    /**
+     * Moves an open session to a final status, then deletes its objects. The status is written first
+     * so that a session completed concurrently keeps its files.
+     */
+    private void close(UploadSession session, UploadSession.Status status, String reason) {
+        session.setStatus(status);
+        session.setErrorMessage(reason);
+        sessionRepository.save(session);
+        minioStorage.deleteQuietly(session.getMedicalHistoryKey());
+        if (session.getTreatmentPlanKey() != null) {
+            minioStorage.deleteQuietly(session.getTreatmentPlanKey());
+        }
+        log.info("Upload session {} {}: {}", session.getId(), status, reason);
+    }
+
+    private String verify(String label, String key, long size, String contentType, String sha256) {
+        Optional<MinioStorageService.ObjectStat> stored = minioStorage.statFile(key);
+        if (stored.isEmpty()) {
+            throw new IllegalStateException("The " + label + " file has not been uploaded yet");
+        }
+        MinioStorageService.ObjectStat stat = stored.get();
+        if (stat.size() != size) {
+            return label + " is " + stat.size() + " bytes, declared " + size;
+        }
+        if (!contentType.equals(stat.contentType())) {
+            return label + " has content type " + stat.contentType() + ", declared " + contentType;
+        }
+        if (!sha256.equals(stat.checksumSha256())) {
+            return label + " SHA-256 checksum does not match the declared one";
+        }
+        return null;
+    }
+
+    /**
+     * Sessions carry the base64 checksum S3 uses; documents store it as hex.
+     */
+    private static String hex(String base64Sha256) {
+        return base64Sha256 != null ? HexFormat.of().formatHex(Base64.getDecoder().decode(base64Sha256)) : null;
+    }
+
+    private void checkSize(UploadSessionRequest.FileSpec file) {
+        if (file.size() > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException(
+                    "File " + file.filename() + " exceeds the maximum size of " + maxFileSize.toMegabytes() + "MB");
+        }
+    }
+
+    /**
+     * The client must send the fields verbatim: they are covered by the policy signature, MinIO rejects
+     * the POST if the body does not match the declared size or checksum, and stores the content type and
+     * checksum for the completion check.
+     */
+    private UploadSessionResponse.UploadTarget target(String key, UploadSessionRequest.FileSpec file) {
+        MinioStorageService.PresignedPost post = minioStorage.presignedPost(
+                key, urlExpiry, file.size(), file.contentType(), file.sha256());
+        return new UploadSessionResponse.UploadTarget(post.url(), post.fields());
+    }
+}
@@ -15,7 +15,8 @@ import lombok.*;
 public class BiopsyResultEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "biopsy_results_seq")
+    @SequenceGenerator(name = "biopsy_results_seq", sequenceName = "biopsy_results_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -15,7 +15,8 @@ import lombok.*;
 public class ConsultationEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "consultations_seq")
+    @SequenceGenerator(name = "consultations_seq", sequenceName = "consultations_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
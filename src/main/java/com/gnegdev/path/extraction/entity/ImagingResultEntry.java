@@ -15,7 +15,8 @@ import lombok.*;
 public class ImagingResultEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "imaging_results_seq")
+    @SequenceGenerator(name = "imaging_results_seq", sequenceName = "imaging_results_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
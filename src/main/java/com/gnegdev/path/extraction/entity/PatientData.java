@@ -2,8 +2,11 @@ package com.gnegdev.path.extraction.entity;
 
 import com.gnegdev.path.document.entity.PatientDocument;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.gnegdev.path.extraction.dto.ExtractedDataDto;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,7 +22,8 @@ import java.util.List;
 public class PatientData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_data_seq")
+    @SequenceGenerator(name = "patient_data_seq", sequenceName = "patient_data_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -37,23 +41,40 @@ public class PatientData {
     private String stage;
     private String subtype;
 
+    /**
+     * Full extraction result as one JSONB document ({@code JSONB} storage mode).
+     * The scalar columns above are still written so list queries don't have to read the document;
+     * the child tables below are only used for rows stored in {@code TABLES} mode.
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    @ToString.Exclude
+    private ExtractedDataDto payload;
+
     @Builder.Default
-    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @ToString.Exclude
     private List<TreatmentHistoryEntry> treatmentHistory = new ArrayList<>();
 
     @Builder.Default
-    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @ToString.Exclude
     private List<BiopsyResultEntry> biopsyResults = new ArrayList<>();
 
     @Builder.Default
-    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @ToString.Exclude
     private List<ConsultationEntry> consultations = new ArrayList<>();
 
     @Builder.Default
-    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "patientData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @ToString.Exclude
     private List<ImagingResultEntry> imagingResults = new ArrayList<>();
+
+    public enum StorageMode {
+        /** One row with the whole result in {@code payload}: a single insert, a single row read. */
+        JSONB,
+        /** Legacy layout: one row per entry in the four child tables. */
+        TABLES
+    }
 }
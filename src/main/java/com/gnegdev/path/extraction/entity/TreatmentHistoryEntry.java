@@ -15,7 +15,8 @@ import lombok.*;
 public class TreatmentHistoryEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "treatment_history_seq")
+    @SequenceGenerator(name = "treatment_history_seq", sequenceName = "treatment_history_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -3,6 +3,9 @@ package com.gnegdev.path.extraction.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gnegdev.path.extraction.dto.ExtractedDataDto;
+import com.gnegdev.path.llm.service.LlmCallGuard;
+import com.gnegdev.path.llm.service.LlmMetrics;
+import com.gnegdev.path.llm.service.LlmResponseCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +20,9 @@ public class LlmExtractionService {
 
     private final RestClient restClient;
     private final ObjectMapper objectMapper;
+    private final LlmResponseCache responseCache;
+    private final LlmCallGuard callGuard;
+    private final LlmMetrics llmMetrics;
 
     @Value("${yandex.cloud.api-key}")
     private String apiKey;
@@ -29,13 +35,25 @@ public class LlmExtractionService {
 
     public LlmExtractionService(
             @Qualifier("yandexCloudRestClient") RestClient restClient,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            LlmResponseCache responseCache,
+            LlmCallGuard callGuard,
+            LlmMetrics llmMetrics
     ) {
         this.restClient = restClient;
         this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.callGuard = callGuard;
+        this.llmMetrics = llmMetrics;
     }
 
     public ExtractedDataDto extract(String medicalHistoryText) {
+        // Re-uploads of the same history are answered from cache without calling the LLM
+        String cachedResponse = responseCache.lookup(promptId, medicalHistoryText).orElse(null);
+        if (cachedResponse != null) {
+            return parseResponse(cachedResponse);
+        }
+
         Map<String, Object> requestBody = Map.of(
                 "prompt", Map.of("id", promptId),
                 "input", medicalHistoryText,
@@ -44,8 +62,9 @@ public class LlmExtractionService {
 
         log.info("Sending medical history text ({} chars) to Yandex Cloud agent, prompt-id: {}",
                 medicalHistoryText.length(), promptId);
+        llmMetrics.recordInput("extraction", medicalHistoryText);
 
-        String rawResponse = restClient.post()
+        String rawResponse = callGuard.call("extraction", () -> restClient.post()
                 .uri("/responses")
                 .header("Authorization", "Bearer " + apiKey)
                 .header("Content-Type", "application/json")
@@ -53,8 +72,15 @@ public class LlmExtractionService {
                 .header("OpenAI-Project", project)
                 .body(requestBody)
                 .retrieve()
-                .body(String.class);
+                .body(String.class));
+
+        llmMetrics.recordUsage("extraction", rawResponse);
+        ExtractedDataDto result = parseResponse(rawResponse);
+        responseCache.store(promptId, medicalHistoryText, rawResponse);
+        return result;
+    }
 
+    ExtractedDataDto parseResponse(String rawResponse) {
         try {
             JsonNode root = objectMapper.readTree(rawResponse);
             String content = extractOutputText(root);
@@ -0,0 +1,30 @@
+package com.gnegdev.path.job.controller;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.job.dto.JobResponse;
+import com.gnegdev.path.job.service.JobQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobQueueService jobQueueService;
+
+    /**
+     * Get the state of a background job (extraction or analysis) for one of the user's documents.
+     *
+     * GET /api/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<JobResponse> get(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(jobQueueService.getForUser(id, user));
+    }
+}
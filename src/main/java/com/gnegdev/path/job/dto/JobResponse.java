@@ -0,0 +1,38 @@
+package com.gnegdev.path.job.dto;
+
+import com.gnegdev.path.job.entity.ProcessingJob;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class JobResponse {
+
+    private Long id;
+    private String type;
+    private Long documentId;
+    private String status;
+    private int attempts;
+    private int maxAttempts;
+    private String lastError;
+    private LocalDateTime runAfter;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+
+    public static JobResponse from(ProcessingJob job) {
+        return JobResponse.builder()
+                .id(job.getId())
+                .type(job.getType().name())
+                .documentId(job.getDocumentId())
+                .status(job.getStatus().name())
+                .attempts(job.getAttempts())
+                .maxAttempts(job.getMaxAttempts())
+                .lastError(job.getLastError())
+                .runAfter(job.getRunAfter())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.gnegdev.path.job.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable unit of background work. Rows are claimed with {@code FOR UPDATE SKIP LOCKED}
+ * and held by a time-limited lease, so several app replicas can drain the queue concurrently
+ * and work of a crashed replica is picked up again once its lease expires.
+ */
+@Entity
+@Table(name = "processing_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+@ToString
+public class ProcessingJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobType type;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    private int attempts;
+
+    private int maxAttempts;
+
+    /** ANALYSIS only: call the LLM even if a cached response exists for the same input. */
+    private boolean bypassCache;
+
+    @Column(nullable = false)
+    private LocalDateTime runAfter;
+
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+
+    public enum JobType {
+        EXTRACTION, ANALYSIS
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, SUCCEEDED, DEAD
+    }
+}
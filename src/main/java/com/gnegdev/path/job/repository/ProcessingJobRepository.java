@@ -0,0 +1,76 @@
+package com.gnegdev.path.job.repository;
+
+import com.gnegdev.path.job.entity.ProcessingJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, Long> {
+
+    /**
+     * Locks up to {@code limit} runnable jobs: queued jobs that are due, plus running jobs whose
+     * lease has expired (their owner died). Rows locked by another replica are skipped.
+     */
+    @Query(value = """
+            SELECT * FROM processing_jobs
+            WHERE (status = 'QUEUED' AND run_after <= :now)
+               OR (status = 'RUNNING' AND lease_expires_at < :now)
+            ORDER BY run_after
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ProcessingJob> lockRunnable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    Optional<ProcessingJob> findFirstByDocumentIdAndTypeAndStatusIn(
+            Long documentId, ProcessingJob.JobType type, Collection<ProcessingJob.JobStatus> statuses);
+
+    @Modifying
+    @Query("""
+            update ProcessingJob j set j.leaseExpiresAt = :until
+            where j.id in :ids and j.leaseOwner = :owner
+              and j.status = com.gnegdev.path.job.entity.ProcessingJob.JobStatus.RUNNING
+            """)
+    int renewLeases(@Param("ids") Collection<Long> ids,
+                    @Param("owner") String owner,
+                    @Param("until") LocalDateTime until);
+
+    /**
+     * Documents stuck in PENDING/PROCESSING without an active extraction job,
+     * e.g. uploads accepted before the job queue existed.
+     */
+    @Query(value = """
+            SELECT d.id FROM patient_documents d
+            WHERE d.status IN ('PENDING', 'PROCESSING')
+              AND NOT EXISTS (
+                  SELECT 1 FROM processing_jobs j
+                  WHERE j.document_id = d.id
+                    AND j.type = 'EXTRACTION'
+                    AND j.status IN ('QUEUED', 'RUNNING'))
+            """, nativeQuery = true)
+    List<Long> findOrphanedDocumentIds();
+
+    @Modifying
+    @Query("""
+            delete from ProcessingJob j
+            where j.documentId = :documentId
+              and j.status = com.gnegdev.path.job.entity.ProcessingJob.JobStatus.QUEUED
+            """)
+    int deleteQueuedForDocument(@Param("documentId") Long documentId);
+
+    @Modifying
+    @Query("""
+            delete from ProcessingJob j
+            where j.id = :id
+              and j.status = com.gnegdev.path.job.entity.ProcessingJob.JobStatus.QUEUED
+            """)
+    int deleteQueuedById(@Param("id") Long id);
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+}
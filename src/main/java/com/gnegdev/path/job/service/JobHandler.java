@@ -0,0 +1,17 @@
+package com.gnegdev.path.job.service;
+
+import com.gnegdev.path.job.entity.ProcessingJob;
+
+/**
+ * Executes one type of {@link ProcessingJob}. Throwing from {@link #handle} schedules a retry
+ * with backoff; once attempts are exhausted the job is dead-lettered and {@link #onDeadLetter} is called.
+ */
+public interface JobHandler {
+
+    ProcessingJob.JobType type();
+
+    void handle(ProcessingJob job) throws Exception;
+
+    default void onDeadLetter(ProcessingJob job) {
+    }
+}
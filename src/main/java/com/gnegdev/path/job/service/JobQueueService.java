@@ -0,0 +1,246 @@
+package com.gnegdev.path.job.service;
+
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.document.repository.PatientDocumentRepository;
+import com.gnegdev.path.job.dto.JobResponse;
+import com.gnegdev.path.job.entity.ProcessingJob;
+import com.gnegdev.path.job.repository.ProcessingJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobQueueService {
+
+    private static final List<ProcessingJob.JobStatus> ACTIVE =
+            List.of(ProcessingJob.JobStatus.QUEUED, ProcessingJob.JobStatus.RUNNING);
+
+    /** Advisory lock key for the startup sweep, so only one replica re-queues orphans at a time. */
+    private static final long RECOVERY_LOCK_KEY = 0x5041_5448_0001L;
+
+    private final ProcessingJobRepository jobRepository;
+    private final PatientDocumentRepository documentRepository;
+
+    @Value("${app.jobs.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${app.jobs.lease-seconds}")
+    private long leaseSeconds;
+
+    @Value("${app.jobs.backoff-base-seconds}")
+    private long backoffBaseSeconds;
+
+    @Value("${app.jobs.backoff-max-seconds}")
+    private long backoffMaxSeconds;
+
+    /**
+     * Enqueues a job in the caller's transaction, so the job exists if and only if the caller commits.
+     * If a job of the same type is already queued or running for the document, that job is returned.
+     */
+    @Transactional
+    public ProcessingJob enqueue(ProcessingJob.JobType type, Long documentId) {
+        return enqueue(type, documentId, false);
+    }
+
+    /**
+     * Same as {@link #enqueue(ProcessingJob.JobType, Long)}, but with {@code bypassCache} the job skips the
+     * LLM response cache. A queued job that is returned instead is switched to bypass the cache as well.
+     */
+    @Transactional
+    public ProcessingJob enqueue(ProcessingJob.JobType type, Long documentId, boolean bypassCache) {
+        return offer(type, documentId, bypassCache).job();
+    }
+
+    /**
+     * {@link #enqueue(ProcessingJob.JobType, Long, boolean)} that also tells whether the job was created by
+     * this call, so a caller that may later cancel it leaves alone a job someone else queued.
+     */
+    @Transactional
+    public Enqueued offer(ProcessingJob.JobType type, Long documentId, boolean bypassCache) {
+        ProcessingJob active = jobRepository
+                .findFirstByDocumentIdAndTypeAndStatusIn(documentId, type, ACTIVE)
+                .orElse(null);
+        if (active != null) {
+            if (bypassCache && active.getStatus() == ProcessingJob.JobStatus.QUEUED) {
+                active.setBypassCache(true);
+            }
+            return new Enqueued(active, false);
+        }
+        ProcessingJob job = ProcessingJob.builder()
+                .type(type)
+                .documentId(documentId)
+                .status(ProcessingJob.JobStatus.QUEUED)
+                .maxAttempts(maxAttempts)
+                .bypassCache(bypassCache)
+                .runAfter(LocalDateTime.now())
+                .build();
+        job = jobRepository.save(job);
+        log.info("Enqueued {} job {} for document {}", type, job.getId(), documentId);
+        return new Enqueued(job, true);
+    }
+
+    /**
+     * Drops the document's jobs that have not started, in the caller's transaction. A running job
+     * is left to finish or fail on its own.
+     */
+    @Transactional
+    public int cancelQueued(Long documentId) {
+        return jobRepository.deleteQueuedForDocument(documentId);
+    }
+
+    /**
+     * Drops the job if it has not started yet. Returns {@code false} if it is running or already finished.
+     */
+    @Transactional
+    public boolean cancelQueuedJob(Long jobId) {
+        return jobRepository.deleteQueuedById(jobId) > 0;
+    }
+
+    /**
+     * The jobs with the given ids that still exist, by id.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, ProcessingJob> findJobs(Collection<Long> jobIds) {
+        if (jobIds.isEmpty()) return Map.of();
+        return jobRepository.findAllById(jobIds).stream()
+                .collect(Collectors.toMap(ProcessingJob::getId, Function.identity()));
+    }
+
+    /**
+     * Claims up to {@code limit} runnable jobs for {@code owner}. The rows stay locked until this
+     * transaction commits, so concurrent replicas never claim the same job.
+     */
+    @Transactional
+    public List<ProcessingJob> claim(String owner, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProcessingJob> jobs = jobRepository.lockRunnable(now, limit);
+        for (ProcessingJob job : jobs) {
+            if (job.getStatus() == ProcessingJob.JobStatus.RUNNING) {
+                log.warn("Reclaiming job {} from expired lease of {}", job.getId(), job.getLeaseOwner());
+            }
+            job.setStatus(ProcessingJob.JobStatus.RUNNING);
+            job.setLeaseOwner(owner);
+            job.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return jobs;
+    }
+
+    @Transactional
+    public void renewLeases(Collection<Long> jobIds, String owner) {
+        if (jobIds.isEmpty()) return;
+        jobRepository.renewLeases(jobIds, owner, LocalDateTime.now().plusSeconds(leaseSeconds));
+    }
+
+    @Transactional
+    public void complete(Long jobId, String owner) {
+        jobRepository.findById(jobId)
+                .filter(job -> owner.equals(job.getLeaseOwner()))
+                .ifPresent(job -> {
+                    job.setStatus(ProcessingJob.JobStatus.SUCCEEDED);
+                    job.setLeaseOwner(null);
+                    job.setLeaseExpiresAt(null);
+                    job.setFinishedAt(LocalDateTime.now());
+                });
+    }
+
+    /**
+     * Returns a claimed job that was never started to the queue, without counting the attempt.
+     */
+    @Transactional
+    public void release(Long jobId, String owner) {
+        jobRepository.findById(jobId)
+                .filter(job -> owner.equals(job.getLeaseOwner())
+                        && job.getStatus() == ProcessingJob.JobStatus.RUNNING)
+                .ifPresent(job -> {
+                    job.setStatus(ProcessingJob.JobStatus.QUEUED);
+                    job.setLeaseOwner(null);
+                    job.setLeaseExpiresAt(null);
+                    job.setAttempts(Math.max(0, job.getAttempts() - 1));
+                    job.setRunAfter(LocalDateTime.now());
+                });
+    }
+
+    /**
+     * Records a failed attempt. Returns {@code true} if the job has been dead-lettered.
+     */
+    @Transactional
+    public boolean fail(Long jobId, String owner, String error) {
+        ProcessingJob job = jobRepository.findById(jobId)
+                .filter(j -> owner.equals(j.getLeaseOwner()))
+                .orElse(null);
+        if (job == null) {
+            log.warn("Lost lease on job {} before recording failure", jobId);
+            return false;
+        }
+        job.setLastError(error);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        if (job.getAttempts() >= job.getMaxAttempts()) {
+            job.setStatus(ProcessingJob.JobStatus.DEAD);
+            job.setFinishedAt(LocalDateTime.now());
+            log.error("Job {} dead-lettered after {} attempts: {}", jobId, job.getAttempts(), error);
+            return true;
+        }
+        long delay = backoffSeconds(job.getAttempts());
+        job.setStatus(ProcessingJob.JobStatus.QUEUED);
+        job.setRunAfter(LocalDateTime.now().plusSeconds(delay));
+        log.warn("Job {} attempt {} failed, retrying in {}s: {}", jobId, job.getAttempts(), delay, error);
+        return false;
+    }
+
+    @Transactional(readOnly = true)
+    public JobResponse getForUser(Long jobId, User user) {
+        ProcessingJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
+        // Jobs are visible only through ownership of their document
+        documentRepository.findByIdAndUser(job.getDocumentId(), user)
+                .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
+        return JobResponse.from(job);
+    }
+
+    /**
+     * Re-queues extraction for documents left in PENDING/PROCESSING without an active job.
+     * Jobs whose owner died are reclaimed by {@link #claim} once their lease expires.
+     */
+    @Transactional
+    public int requeueOrphanedDocuments() {
+        if (!jobRepository.tryAdvisoryXactLock(RECOVERY_LOCK_KEY)) {
+            log.info("Another replica is running the recovery sweep, skipping");
+            return 0;
+        }
+        List<Long> orphans = jobRepository.findOrphanedDocumentIds();
+        for (Long documentId : orphans) {
+            documentRepository.findById(documentId).ifPresent(doc ->
+                    doc.setStatus(PatientDocument.ProcessingStatus.PENDING));
+            enqueue(ProcessingJob.JobType.EXTRACTION, documentId);
+        }
+        if (!orphans.isEmpty()) {
+            log.info("Re-queued {} orphaned documents for extraction", orphans.size());
+        }
+        return orphans.size();
+    }
+
+    /** The active job for the document, and whether {@link #offer} created it. */
+    public record Enqueued(ProcessingJob job, boolean created) {
+    }
+
+    /** Exponential backoff with full jitter: random delay in [base, min(max, base * 2^(attempt-1))]. */
+    private long backoffSeconds(int attempt) {
+        long ceiling = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(backoffBaseSeconds, Math.max(backoffBaseSeconds, ceiling) + 1);
+    }
+}
@@ -0,0 +1,124 @@
+package com.gnegdev.path.job.service;
+
+import com.gnegdev.path.job.entity.ProcessingJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Polls the job table and runs claimed jobs on the document processing pool.
+ * Claims only as many jobs as there are free worker slots, so nothing queues up in memory.
+ */
+@Component
+@Slf4j
+public class JobWorker {
+
+    private final JobQueueService jobQueue;
+    private final TaskExecutor executor;
+    private final Map<ProcessingJob.JobType, JobHandler> handlers = new EnumMap<>(ProcessingJob.JobType.class);
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final String nodeId;
+
+    @Value("${app.jobs.enabled}")
+    private boolean enabled;
+
+    @Value("${app.processing.max-pool-size}")
+    private int concurrency;
+
+    public JobWorker(
+            JobQueueService jobQueue,
+            @Qualifier("documentProcessingExecutor") TaskExecutor executor,
+            List<JobHandler> handlers
+    ) {
+        this.jobQueue = jobQueue;
+        this.executor = executor;
+        handlers.forEach(h -> this.handlers.put(h.type(), h));
+        String host = System.getenv().getOrDefault("HOSTNAME", "local");
+        this.nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        if (!enabled) return;
+        try {
+            jobQueue.requeueOrphanedDocuments();
+        } catch (Exception e) {
+            log.error("Startup recovery sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms}")
+    public void poll() {
+        if (!enabled) return;
+        int free = concurrency - inFlight.size();
+        if (free <= 0) return;
+
+        List<ProcessingJob> jobs;
+        try {
+            jobs = jobQueue.claim(nodeId, free);
+        } catch (Exception e) {
+            log.error("Failed to claim jobs: {}", e.getMessage(), e);
+            return;
+        }
+        for (ProcessingJob job : jobs) {
+            inFlight.add(job.getId());
+            try {
+                executor.execute(() -> run(job));
+            } catch (TaskRejectedException e) {
+                // Shutting down or saturated: hand the job back instead of holding its lease and slot
+                inFlight.remove(job.getId());
+                log.warn("Job {} rejected by the executor, releasing it: {}", job.getId(), e.getMessage());
+                try {
+                    jobQueue.release(job.getId(), nodeId);
+                } catch (Exception releaseError) {
+                    log.error("Failed to release job {}, it is retried once its lease expires: {}",
+                            job.getId(), releaseError.getMessage());
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.lease-renew-interval-ms}")
+    public void renewLeases() {
+        if (inFlight.isEmpty()) return;
+        try {
+            jobQueue.renewLeases(Set.copyOf(inFlight), nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to renew job leases: {}", e.getMessage());
+        }
+    }
+
+    private void run(ProcessingJob job) {
+        try {
+            JobHandler handler = handlers.get(job.getType());
+            if (handler == null) {
+                throw new IllegalStateException("No handler for job type " + job.getType());
+            }
+            handler.handle(job);
+            jobQueue.complete(job.getId(), nodeId);
+        } catch (Exception e) {
+            log.error("Job {} ({}) failed: {}", job.getId(), job.getType(), e.getMessage(), e);
+            boolean dead = jobQueue.fail(job.getId(), nodeId, e.getMessage());
+            JobHandler handler = handlers.get(job.getType());
+            if (dead && handler != null) {
+                job.setLastError(e.getMessage());
+                handler.onDeadLetter(job);
+            }
+        } finally {
+            inFlight.remove(job.getId());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.gnegdev.path.llm.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent tier of the LLM response cache. Keyed by {@code promptId:sha256(input)}.
+ */
+@Entity
+@Table(name = "llm_response_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+@ToString(exclude = "response")
+public class LlmCacheEntry {
+
+    @Id
+    @Column(length = 128)
+    private String cacheKey;
+
+    @Column(nullable = false)
+    private String promptId;
+
+    @Column(nullable = false, length = 64)
+    private String inputHash;
+
+    private int inputChars;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String response;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,32 @@
+package com.gnegdev.path.llm.repository;
+
+import com.gnegdev.path.llm.entity.LlmCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface LlmCacheEntryRepository extends JpaRepository<LlmCacheEntry, String> {
+
+    Optional<LlmCacheEntry> findByCacheKeyAndCreatedAtAfter(String cacheKey, LocalDateTime notBefore);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO llm_response_cache (cache_key, prompt_id, input_hash, input_chars, response, created_at)
+            VALUES (:cacheKey, :promptId, :inputHash, :inputChars, :response, now())
+            ON CONFLICT (cache_key) DO UPDATE
+                SET response = EXCLUDED.response, input_chars = EXCLUDED.input_chars, created_at = now()
+            """, nativeQuery = true)
+    int upsert(@Param("cacheKey") String cacheKey,
+                       @Param("promptId") String promptId,
+                       @Param("inputHash") String inputHash,
+                       @Param("inputChars") int inputChars,
+                       @Param("response") String response);
+
+    @Modifying
+    @Query("delete from LlmCacheEntry e where e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,203 @@
+package com.gnegdev.path.llm.service;
+
+import com.gnegdev.path.config.ConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Resilience wrapper shared by every {@code /responses} call.
+ * Each attempt passes, in order: the circuit breaker (fail fast while the provider is down),
+ * the token-bucket rate limiter (stay within the quota), and the bulkhead (cap in-flight calls).
+ * Retryable failures — 429, 5xx and I/O errors — are retried with exponential backoff and full jitter,
+ * honoring {@code Retry-After} when the provider sends it.
+ */
+@Component
+@Slf4j
+public class LlmCallGuard {
+
+    private final ConcurrencyLimiter bulkhead;
+    private final TokenBucket rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration rateLimitMaxWait;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter retries;
+    private final Timer rateLimitWait;
+
+    public LlmCallGuard(
+            @Qualifier("llmConcurrencyLimiter") ConcurrencyLimiter bulkhead,
+            MeterRegistry meterRegistry,
+            @Value("${app.llm.resilience.rate-limit.requests-per-second}") double requestsPerSecond,
+            @Value("${app.llm.resilience.rate-limit.burst}") int burst,
+            @Value("${app.llm.resilience.rate-limit.max-wait}") Duration rateLimitMaxWait,
+            @Value("${app.llm.resilience.retry.max-attempts}") int maxAttempts,
+            @Value("${app.llm.resilience.retry.backoff-base}") Duration backoffBase,
+            @Value("${app.llm.resilience.retry.backoff-max}") Duration backoffMax,
+            @Value("${app.llm.resilience.circuit-breaker.failure-threshold}") int failureThreshold,
+            @Value("${app.llm.resilience.circuit-breaker.open-duration}") Duration openDuration
+    ) {
+        this.bulkhead = bulkhead;
+        this.rateLimiter = new TokenBucket(requestsPerSecond, burst);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.rateLimitMaxWait = rateLimitMaxWait;
+
+        this.meterRegistry = meterRegistry;
+        this.retries = Counter.builder("path.llm.retries")
+                .description("LLM call attempts that were retried")
+                .register(meterRegistry);
+        this.rateLimitWait = Timer.builder("path.llm.ratelimit.wait")
+                .description("Time spent waiting for a rate-limiter token")
+                .register(meterRegistry);
+        Gauge.builder("path.llm.circuit.state", circuitBreaker, cb -> cb.state().ordinal())
+                .description("LLM circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    public <T> T call(String operation, Supplier<T> action) {
+        return call(operation, action, () -> true);
+    }
+
+    /**
+     * @param retryAllowed checked before every retry; streaming callers return {@code false}
+     *                     once output has been forwarded, since a retry would duplicate it
+     */
+    public <T> T call(String operation, Supplier<T> action, BooleanSupplier retryAllowed) {
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                record(operation, "circuit_open");
+                throw new LlmUnavailableException("LLM provider circuit is open, try again later");
+            }
+            try {
+                acquireRateLimitToken(operation);
+                T result = bulkhead.call(() -> timed(operation, action));
+                circuitBreaker.onSuccess();
+                record(operation, "success");
+                return result;
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    circuitBreaker.onIgnored();
+                    record(operation, e instanceof LlmUnavailableException ? "rate_limited" : "failure");
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                if (attempt >= maxAttempts || !retryAllowed.getAsBoolean()) {
+                    record(operation, "failure");
+                    throw e;
+                }
+                Duration delay = backoff(attempt, e);
+                retries.increment();
+                log.warn("LLM {} attempt {}/{} failed ({}), retrying in {} ms",
+                        operation, attempt, maxAttempts, e.getMessage(), delay.toMillis());
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Times a single attempt against the provider, tagged with the HTTP status it ended with.
+     * Waiting for the rate limiter and the bulkhead is not included.
+     */
+    private <T> T timed(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "200";
+        try {
+            return action.get();
+        } catch (HttpStatusCodeException e) {
+            status = String.valueOf(e.getStatusCode().value());
+            throw e;
+        } catch (ResourceAccessException e) {
+            status = "io_error";
+            throw e;
+        } catch (RuntimeException e) {
+            status = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("path.llm.request")
+                    .description("Latency of a single LLM provider request")
+                    .tag("operation", operation)
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void acquireRateLimitToken(String operation) {
+        Duration wait = rateLimiter.acquire(rateLimitMaxWait);
+        if (wait == null) {
+            throw new LlmUnavailableException("LLM rate limit exceeded for " + operation);
+        }
+        rateLimitWait.record(wait);
+        if (!wait.isZero()) {
+            sleep(wait);
+        }
+    }
+
+    private boolean isRetryable(RuntimeException e) {
+        if (e instanceof HttpStatusCodeException http) {
+            return http.getStatusCode().value() == 429 || http.getStatusCode().is5xxServerError();
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    private Duration backoff(int attempt, RuntimeException e) {
+        if (e instanceof HttpStatusCodeException http && http.getResponseHeaders() != null) {
+            Long retryAfter = retryAfterSeconds(http.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            if (retryAfter != null) {
+                return Duration.ofSeconds(Math.min(retryAfter, backoffMax.toSeconds()));
+            }
+        }
+        long ceiling = Math.min(backoffMax.toMillis(), backoffBase.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Delay-seconds form of {@code Retry-After}, or {@code null} when the header is missing, empty, an
+     * HTTP-date or too large to parse; the caller then falls back to the jittered backoff.
+     */
+    private static Long retryAfterSeconds(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.isEmpty() || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrupted while waiting to call the LLM");
+        }
+    }
+
+    private void record(String operation, String outcome) {
+        meterRegistry.counter("path.llm.calls", "operation", operation, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,59 @@
+package com.gnegdev.path.llm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Request size and token usage of LLM calls, per operation.
+ * Only calls that reached the provider are recorded; cache hits are counted by {@link LlmResponseCache}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LlmMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public void recordInput(String operation, String input) {
+        DistributionSummary.builder("path.llm.input.chars")
+                .description("Characters sent to the LLM per request")
+                .baseUnit("chars")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(input.length());
+    }
+
+    /**
+     * Records the {@code usage} block of a Responses API reply:
+     * {@code {"usage": {"input_tokens": 1200, "output_tokens": 350, "total_tokens": 1550}}}.
+     * Replies without usage (e.g. a stream closed before its completion event) are skipped.
+     */
+    public void recordUsage(String operation, String rawResponse) {
+        JsonNode usage;
+        try {
+            usage = objectMapper.readTree(rawResponse).path("usage");
+        } catch (Exception e) {
+            log.debug("No usage block in LLM response: {}", e.getMessage());
+            return;
+        }
+        recordTokens(operation, "input", usage.path("input_tokens"));
+        recordTokens(operation, "output", usage.path("output_tokens"));
+    }
+
+    private void recordTokens(String operation, String type, JsonNode value) {
+        if (!value.isNumber()) return;
+        DistributionSummary.builder("path.llm.tokens")
+                .description("Tokens billed per LLM request")
+                .baseUnit("tokens")
+                .tag("operation", operation)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(value.asLong());
+    }
+}
@@ -0,0 +1,143 @@
+package com.gnegdev.path.llm.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gnegdev.path.llm.entity.LlmCacheEntry;
+import com.gnegdev.path.llm.repository.LlmCacheEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed cache of raw {@code /responses} payloads, keyed by (prompt id, SHA-256 of input).
+ * Two tiers: a weight-bounded in-memory Caffeine cache in front of the {@code llm_response_cache} table.
+ * Only responses that parsed successfully should be stored, so a malformed completion is never replayed.
+ * Storing a key again replaces its response and restarts its TTL, so an answer fetched past the cache
+ * supersedes the cached one.
+ */
+@Service
+@Slf4j
+public class LlmResponseCache {
+
+    private final LlmCacheEntryRepository repository;
+    private final TransactionTemplate requiresNew;
+    private final Cache<String, String> memory;
+    private final boolean enabled;
+    private final int ttlDays;
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public LlmResponseCache(
+            LlmCacheEntryRepository repository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.llm-cache.enabled}") boolean enabled,
+            @Value("${app.llm-cache.memory-max-size}") DataSize memoryMaxSize,
+            @Value("${app.llm-cache.ttl-days}") int ttlDays
+    ) {
+        this.repository = repository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.ttlDays = ttlDays;
+        // Weight is an approximation of retained heap: two bytes per char for key and value
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxSize.toBytes())
+                .weigher((String key, String value) -> 2 * (key.length() + value.length()))
+                .build();
+
+        this.memoryHits = lookupCounter(meterRegistry, "memory", "hit");
+        this.databaseHits = lookupCounter(meterRegistry, "database", "hit");
+        this.misses = lookupCounter(meterRegistry, "none", "miss");
+        Gauge.builder("path.llm.cache.memory.entries", memory, Cache::estimatedSize)
+                .description("Entries held in the in-memory LLM response cache")
+                .register(meterRegistry);
+    }
+
+    public Optional<String> lookup(String promptId, String input) {
+        if (!enabled) return Optional.empty();
+        String key = cacheKey(promptId, input);
+
+        String cached = memory.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.increment();
+            log.info("LLM cache hit (memory) for prompt {}", promptId);
+            return Optional.of(cached);
+        }
+
+        Optional<String> stored = repository
+                .findByCacheKeyAndCreatedAtAfter(key, LocalDateTime.now().minusDays(ttlDays))
+                .map(LlmCacheEntry::getResponse);
+        if (stored.isPresent()) {
+            databaseHits.increment();
+            memory.put(key, stored.get());
+            log.info("LLM cache hit (database) for prompt {}", promptId);
+            return stored;
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void store(String promptId, String input, String rawResponse) {
+        if (!enabled || rawResponse == null) return;
+        String hash = sha256(input);
+        String key = promptId + ":" + hash;
+        memory.put(key, rawResponse);
+        try {
+            // Own transaction: a cache write must never roll back or poison the caller's work
+            requiresNew.executeWithoutResult(status ->
+                    repository.upsert(key, promptId, hash, input.length(), rawResponse));
+        } catch (Exception e) {
+            log.warn("Failed to persist LLM cache entry for prompt {}: {}", promptId, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.llm-cache.purge-cron}")
+    public void purgeExpired() {
+        if (!enabled) return;
+        Integer removed = requiresNew.execute(status ->
+                repository.deleteOlderThan(LocalDateTime.now().minusDays(ttlDays)));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} expired LLM cache entries", removed);
+        }
+    }
+
+    static String cacheKey(String promptId, String input) {
+        return promptId + ":" + sha256(input);
+    }
+
+    static String sha256(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("path.llm.cache.lookups")
+                .description("LLM response cache lookups")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
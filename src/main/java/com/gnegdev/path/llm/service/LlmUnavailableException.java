@@ -0,0 +1,11 @@
+package com.gnegdev.path.llm.service;
+
+/**
+ * Thrown without calling the provider when the circuit is open or the rate limit cannot be met in time.
+ */
+public class LlmUnavailableException extends RuntimeException {
+
+    public LlmUnavailableException(String message) {
+        super(message);
+    }
+}
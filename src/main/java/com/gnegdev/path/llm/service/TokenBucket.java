@@ -0,0 +1,41 @@
+package com.gnegdev.path.llm.service;
+
+import java.time.Duration;
+
+/**
+ * Token bucket refilled continuously at {@code ratePerSecond}, holding at most {@code burst} tokens.
+ * {@link #acquire(Duration)} reserves a token and returns how long the caller has to wait for it,
+ * so waiting happens outside the lock and callers are served in arrival order.
+ */
+class TokenBucket {
+
+    private final double ratePerSecond;
+    private final double burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double ratePerSecond, int burst) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the wait before the reserved token becomes available, or {@code null} if that wait
+     *         would exceed {@code maxWait} (nothing is reserved in that case)
+     */
+    synchronized Duration acquire(Duration maxWait) {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * ratePerSecond);
+        lastRefillNanos = now;
+
+        double deficit = 1 - tokens;
+        long waitNanos = deficit <= 0 ? 0 : (long) (deficit / ratePerSecond * 1e9);
+        if (waitNanos > maxWait.toNanos()) {
+            return null;
+        }
+        tokens -= 1;
+        return Duration.ofNanos(waitNanos);
+    }
+}
@@ -2,29 +2,47 @@ package com.gnegdev.path.web;
 
 import com.gnegdev.path.analysis.dto.AnalysisResponse;
 import com.gnegdev.path.analysis.service.AnalysisService;
+import com.gnegdev.path.analysis.service.AnalysisStreamService;
 import com.gnegdev.path.auth.dto.RegisterRequest;
-import com.gnegdev.path.auth.repository.UserRepository;
+import com.gnegdev.path.auth.entity.User;
 import com.gnegdev.path.auth.service.AuthService;
+import com.gnegdev.path.document.dto.DocumentCounts;
+import com.gnegdev.path.document.dto.DocumentPage;
 import com.gnegdev.path.document.dto.DocumentResponse;
+import com.gnegdev.path.document.dto.DocumentStatusResponse;
+import com.gnegdev.path.document.dto.UploadSessionRequest;
+import com.gnegdev.path.document.dto.UploadSessionResponse;
 import com.gnegdev.path.document.entity.PatientDocument;
 import com.gnegdev.path.document.repository.PatientDocumentRepository;
 import com.gnegdev.path.document.service.DocumentService;
 import com.gnegdev.path.document.service.MinioStorageService;
+import com.gnegdev.path.document.service.UploadSessionService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/web")
@@ -33,10 +51,21 @@ public class WebController {
 
     private final DocumentService documentService;
     private final AnalysisService analysisService;
+    private final AnalysisStreamService analysisStreamService;
     private final AuthService authService;
     private final PatientDocumentRepository patientDocumentRepository;
-    private final UserRepository userRepository;
     private final MinioStorageService minioStorageService;
+    private final UploadSessionService uploadSessionService;
+
+    @Value("${app.downloads.mode}")
+    private DownloadMode downloadMode;
+
+    @Value("${app.downloads.url-expiry}")
+    private Duration downloadUrlExpiry;
+
+    public enum DownloadMode {
+        REDIRECT, PROXY
+    }
 
     // ─── Landing ──────────────────────────────────────────────────────────────
 
@@ -78,15 +107,19 @@ public class WebController {
     // ─── Dashboard ────────────────────────────────────────────────────────────
 
     @GetMapping("/dashboard")
-    public String dashboard(Model model, Authentication auth) {
-        List<DocumentResponse> documents = documentService.listDocuments(auth.getName());
-        long completed = documents.stream()
-                .filter(d -> "COMPLETED".equals(d.getStatus()))
-                .count();
-        model.addAttribute("documents", documents);
-        model.addAttribute("username", auth.getName());
-        model.addAttribute("total", documents.size());
-        model.addAttribute("completed", completed);
+    public String dashboard(@RequestParam(required = false) String cursor,
+                            @RequestParam(required = false) Boolean uploaded,
+                            Model model, @AuthenticationPrincipal User user) {
+        DocumentPage page = documentService.listDocuments(user, cursor, null);
+        DocumentCounts counts = documentService.countDocuments(user);
+        model.addAttribute("documents", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("username", user.getUsername());
+        model.addAttribute("total", counts.total());
+        model.addAttribute("completed", counts.completed());
+        if (Boolean.TRUE.equals(uploaded)) {
+            model.addAttribute("uploadSuccess", true);
+        }
         return "dashboard";
     }
 
@@ -96,10 +129,10 @@ public class WebController {
     public String upload(
             @RequestParam MultipartFile medicalHistory,
             @RequestParam(required = false) MultipartFile treatmentPlan,
-            Authentication auth,
+            @AuthenticationPrincipal User user,
             RedirectAttributes redirectAttributes) {
         try {
-            documentService.upload(auth.getName(), medicalHistory, treatmentPlan);
+            documentService.upload(user, medicalHistory, treatmentPlan);
             redirectAttributes.addFlashAttribute("uploadSuccess", true);
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("uploadError", e.getMessage());
@@ -107,25 +140,54 @@ public class WebController {
         return "redirect:/web/dashboard";
     }
 
+    // Direct upload from the dashboard script: files go to MinIO through presigned URLs
+
+    @PostMapping("/upload-sessions")
+    @ResponseBody
+    public ResponseEntity<UploadSessionResponse> createUploadSession(
+            @Valid @RequestBody UploadSessionRequest request, @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(uploadSessionService.createSession(user, request));
+    }
+
+    @PostMapping("/upload-sessions/{id}/complete")
+    @ResponseBody
+    public ResponseEntity<?> completeUploadSession(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.complete(id, user));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
     // ─── Patient record ───────────────────────────────────────────────────────
 
     @GetMapping("/patients/{id}")
-    public String patientRecord(@PathVariable Long id, Model model, Authentication auth) {
-        DocumentResponse doc = documentService.getDocument(id, auth.getName());
+    public String patientRecord(@PathVariable Long id, Model model, @AuthenticationPrincipal User user) {
+        DocumentResponse doc = documentService.getDocument(id, user);
         model.addAttribute("doc", doc);
-        model.addAttribute("username", auth.getName());
+        model.addAttribute("username", user.getUsername());
         return "patient-record";
     }
 
+    @GetMapping("/patients/{id}/status")
+    @ResponseBody
+    public ResponseEntity<DocumentStatusResponse> patientStatus(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(documentService.getStatus(id, user));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // ─── AI chat ─────────────────────────────────────────────────────────────
 
     @GetMapping("/patients/{id}/chat")
-    public String aiChat(@PathVariable Long id, Model model, Authentication auth) {
-        DocumentResponse doc = documentService.getDocument(id, auth.getName());
+    public String aiChat(@PathVariable Long id, Model model, @AuthenticationPrincipal User user) {
+        DocumentResponse doc = documentService.getDocument(id, user);
         model.addAttribute("doc", doc);
-        model.addAttribute("username", auth.getName());
+        model.addAttribute("username", user.getUsername());
         try {
-            AnalysisResponse analysis = analysisService.getAnalysis(id, auth.getName());
+            AnalysisResponse analysis = analysisService.getAnalysis(id, user);
             model.addAttribute("analysis", analysis);
         } catch (Exception e) {
             model.addAttribute("analysis", null);
@@ -137,37 +199,34 @@ public class WebController {
 
     @PostMapping("/patients/{id}/analyze")
     @ResponseBody
-    public ResponseEntity<AnalysisResponse> analyze(@PathVariable Long id, Authentication auth) {
+    public ResponseEntity<AnalysisResponse> analyze(@PathVariable Long id, @AuthenticationPrincipal User user) {
         try {
-            AnalysisResponse response = analysisService.analyze(id, auth.getName());
+            AnalysisResponse response = analysisService.analyze(id, user, false);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @PostMapping(value = "/patients/{id}/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter analyzeStream(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        return analysisStreamService.stream(id, user);
+    }
+
     // ─── Downloads ────────────────────────────────────────────────────────────
 
     @GetMapping("/patients/{id}/download/medical-history")
     public ResponseEntity<InputStreamResource> downloadMedicalHistory(
-            @PathVariable Long id, Authentication auth) {
+            @PathVariable Long id, @AuthenticationPrincipal User user, ServletWebRequest request) {
         try {
-            var user = userRepository.findByUsername(auth.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
             PatientDocument doc = patientDocumentRepository.findByIdAndUser(id, user)
                     .orElseThrow(() -> new RuntimeException("Document not found"));
-            InputStream stream = minioStorageService.downloadFile(doc.getMedicalHistoryKey());
             String filename = doc.getMedicalHistoryFilename() != null
                     ? doc.getMedicalHistoryFilename() : "medical-history";
             String contentType = doc.getMedicalHistoryContentType() != null
                     ? doc.getMedicalHistoryContentType() : "application/octet-stream";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentDisposition(
-                    ContentDisposition.attachment().filename(filename).build());
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(new InputStreamResource(stream));
+            return download(doc.getMedicalHistoryKey(), filename, contentType, request);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -175,32 +234,107 @@ public class WebController {
 
     @GetMapping("/patients/{id}/download/treatment-plan")
     public ResponseEntity<InputStreamResource> downloadTreatmentPlan(
-            @PathVariable Long id, Authentication auth) {
+            @PathVariable Long id, @AuthenticationPrincipal User user, ServletWebRequest request) {
         try {
-            var user = userRepository.findByUsername(auth.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
             PatientDocument doc = patientDocumentRepository.findByIdAndUser(id, user)
                     .orElseThrow(() -> new RuntimeException("Document not found"));
             if (doc.getTreatmentPlanKey() == null) {
                 return ResponseEntity.notFound().build();
             }
-            InputStream stream = minioStorageService.downloadFile(doc.getTreatmentPlanKey());
             String filename = doc.getTreatmentPlanFilename() != null
                     ? doc.getTreatmentPlanFilename() : "treatment-plan";
             String contentType = doc.getTreatmentPlanContentType() != null
                     ? doc.getTreatmentPlanContentType() : "application/octet-stream";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentDisposition(
-                    ContentDisposition.attachment().filename(filename).build());
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(new InputStreamResource(stream));
+            return download(doc.getTreatmentPlanKey(), filename, contentType, request);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * In {@code REDIRECT} mode the browser is sent to a short-lived presigned MinIO URL and the file never
+     * passes through the app. In {@code PROXY} mode the file is streamed from MinIO with ETag/Last-Modified
+     * revalidation and single byte ranges, so PDF viewers can fetch pages and resume downloads.
+     */
+    private ResponseEntity<InputStreamResource> download(String key, String filename, String contentType,
+                                                         ServletWebRequest request) {
+        ContentDisposition disposition = ContentDisposition.attachment().filename(filename).build();
+        if (downloadMode == DownloadMode.REDIRECT) {
+            String url = minioStorageService.presignedGetUrl(key, downloadUrlExpiry, disposition.toString(), contentType);
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(url))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+
+        MinioStorageService.ObjectStat stat = minioStorageService.statFile(key).orElse(null);
+        if (stat == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + stat.etag() + "\"";
+        // Answered before opening the object, so a 304 costs one metadata request
+        if (request.checkNotModified(etag, stat.lastModified().toEpochMilli())) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(disposition);
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        headers.setETag(etag);
+        headers.setLastModified(stat.lastModified());
+        // Patient files: browser cache only, revalidated on every use
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        HttpStatus status = HttpStatus.OK;
+        long offset = 0;
+        long length = stat.size();
+        HttpRange range = singleRange(request, etag);
+        if (range != null) {
+            try {
+                offset = range.getRangeStart(stat.size());
+                length = range.getRangeEnd(stat.size()) - offset + 1;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + stat.size())
+                        .build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + offset + "-" + (offset + length - 1) + "/" + stat.size());
+        }
+        headers.setContentLength(length);
+
+        if (request.getHttpMethod() == HttpMethod.HEAD) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        InputStream stream = range != null
+                ? minioStorageService.downloadRange(key, offset, length)
+                : minioStorageService.downloadFile(key);
+        return ResponseEntity.status(status).headers(headers).body(new InputStreamResource(stream));
+    }
+
+    /**
+     * The requested range, or {@code null} to send the whole file: no or malformed {@code Range},
+     * several ranges, or an {@code If-Range} that no longer matches.
+     */
+    private HttpRange singleRange(ServletWebRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.getFirst() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // ─── Utility ──────────────────────────────────────────────────────────────
 
     private String encodeError(String message) {
@@ -0,0 +1,3 @@
+-- Whether a batch item's job was created for the batch (AnalysisBatchItem.ownsJob); only those are
+-- cancelled with the batch. Items submitted before this column existed are treated as not owning their job.
+ALTER TABLE analysis_batch_items ADD COLUMN IF NOT EXISTS owns_job BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,144 @@
+-- Baseline schema. Written to be idempotent so databases previously managed by
+-- Hibernate ddl-auto=update can be brought under Flyway without manual steps.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS patient_documents (
+    id                           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                      BIGINT NOT NULL REFERENCES users (id),
+    medical_history_key          VARCHAR(255),
+    medical_history_filename     VARCHAR(255),
+    medical_history_content_type VARCHAR(255),
+    treatment_plan_key           VARCHAR(255),
+    treatment_plan_filename      VARCHAR(255),
+    treatment_plan_content_type  VARCHAR(255),
+    status                       VARCHAR(255),
+    error_message                TEXT,
+    created_at                   TIMESTAMP(6)
+);
+
+-- Extracted data ------------------------------------------------------------
+
+CREATE SEQUENCE IF NOT EXISTS patient_data_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS treatment_history_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS biopsy_results_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS consultations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS imaging_results_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS patient_data (
+    id                BIGINT PRIMARY KEY,
+    document_id       BIGINT NOT NULL REFERENCES patient_documents (id),
+    fio_initials      VARCHAR(255),
+    date_of_birth     VARCHAR(255),
+    diagnosis_primary TEXT,
+    stage             VARCHAR(255),
+    subtype           VARCHAR(255),
+    payload           JSONB,
+    CONSTRAINT uk_patient_data_document UNIQUE (document_id)
+);
+ALTER TABLE patient_data ADD COLUMN IF NOT EXISTS payload JSONB;
+
+CREATE TABLE IF NOT EXISTS treatment_history (
+    id              BIGINT PRIMARY KEY,
+    patient_data_id BIGINT NOT NULL REFERENCES patient_data (id),
+    treatment_type  VARCHAR(255),
+    description     TEXT,
+    start_date      VARCHAR(255),
+    end_date        VARCHAR(255),
+    outcome_dynamic VARCHAR(255),
+    outcome_date    VARCHAR(255),
+    details         TEXT
+);
+
+CREATE TABLE IF NOT EXISTS biopsy_results (
+    id              BIGINT PRIMARY KEY,
+    patient_data_id BIGINT NOT NULL REFERENCES patient_data (id),
+    date            VARCHAR(255),
+    type            VARCHAR(255),
+    result_summary  TEXT
+);
+
+CREATE TABLE IF NOT EXISTS consultations (
+    id              BIGINT PRIMARY KEY,
+    patient_data_id BIGINT NOT NULL REFERENCES patient_data (id),
+    date            VARCHAR(255),
+    recommendation  TEXT
+);
+
+CREATE TABLE IF NOT EXISTS imaging_results (
+    id              BIGINT PRIMARY KEY,
+    patient_data_id BIGINT NOT NULL REFERENCES patient_data (id),
+    date            VARCHAR(255),
+    type            VARCHAR(255),
+    findings        TEXT
+);
+
+-- Analysis ------------------------------------------------------------------
+
+CREATE SEQUENCE IF NOT EXISTS analysis_results_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS analysis_mismatches_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS analysis_results (
+    id          BIGINT PRIMARY KEY,
+    document_id BIGINT NOT NULL REFERENCES patient_documents (id),
+    optimal     TEXT,
+    analyzed_at TIMESTAMP(6),
+    CONSTRAINT uk_analysis_results_document UNIQUE (document_id)
+);
+
+CREATE TABLE IF NOT EXISTS analysis_mismatches (
+    id                 BIGINT PRIMARY KEY,
+    analysis_result_id BIGINT NOT NULL REFERENCES analysis_results (id),
+    type               VARCHAR(255),
+    current            TEXT,
+    recommended        TEXT
+);
+
+CREATE TABLE IF NOT EXISTS analysis_recommendations (
+    analysis_result_id BIGINT NOT NULL REFERENCES analysis_results (id),
+    recommendation     TEXT
+);
+
+CREATE TABLE IF NOT EXISTS analysis_sources (
+    analysis_result_id BIGINT NOT NULL REFERENCES analysis_results (id),
+    source             TEXT
+);
+
+-- Processing ----------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS document_texts (
+    document_id     BIGINT PRIMARY KEY,
+    medical_history BYTEA NOT NULL,
+    treatment_plan  BYTEA
+);
+
+CREATE TABLE IF NOT EXISTS processing_jobs (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    type             VARCHAR(255) NOT NULL,
+    document_id      BIGINT NOT NULL,
+    status           VARCHAR(255) NOT NULL,
+    attempts         INTEGER NOT NULL,
+    max_attempts     INTEGER NOT NULL,
+    run_after        TIMESTAMP(6) NOT NULL,
+    lease_owner      VARCHAR(255),
+    lease_expires_at TIMESTAMP(6),
+    last_error       TEXT,
+    created_at       TIMESTAMP(6),
+    finished_at      TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS llm_response_cache (
+    cache_key   VARCHAR(128) PRIMARY KEY,
+    prompt_id   VARCHAR(255) NOT NULL,
+    input_hash  VARCHAR(64)  NOT NULL,
+    input_chars INTEGER      NOT NULL,
+    response    TEXT         NOT NULL,
+    created_at  TIMESTAMP(6)
+);
@@ -0,0 +1,33 @@
+-- Indexes for the queries the application runs on every request or poll.
+-- analysis_results(document_id) and patient_data(document_id) are covered by their unique constraints.
+
+-- Document list: WHERE user_id = ? ORDER BY created_at DESC, id DESC (keyset pagination)
+CREATE INDEX IF NOT EXISTS idx_patient_documents_user_created
+    ON patient_documents (user_id, created_at DESC, id DESC);
+
+-- Dashboard counters: WHERE user_id = ? AND status = ?
+CREATE INDEX IF NOT EXISTS idx_patient_documents_user_status
+    ON patient_documents (user_id, status);
+
+-- Foreign keys used to load child collections and by cascading deletes
+CREATE INDEX IF NOT EXISTS idx_treatment_history_patient_data ON treatment_history (patient_data_id);
+CREATE INDEX IF NOT EXISTS idx_biopsy_results_patient_data ON biopsy_results (patient_data_id);
+CREATE INDEX IF NOT EXISTS idx_consultations_patient_data ON consultations (patient_data_id);
+CREATE INDEX IF NOT EXISTS idx_imaging_results_patient_data ON imaging_results (patient_data_id);
+CREATE INDEX IF NOT EXISTS idx_analysis_mismatches_result ON analysis_mismatches (analysis_result_id);
+CREATE INDEX IF NOT EXISTS idx_analysis_recommendations_result ON analysis_recommendations (analysis_result_id);
+CREATE INDEX IF NOT EXISTS idx_analysis_sources_result ON analysis_sources (analysis_result_id);
+
+-- JSONB containment queries, e.g. payload @> '{"treatment_history":[{"treatment_type":"НАПХТ"}]}'
+CREATE INDEX IF NOT EXISTS idx_patient_data_payload ON patient_data USING gin (payload jsonb_path_ops);
+
+-- Job queue: claim scan over due jobs, and the per-document active-job lookup
+CREATE INDEX IF NOT EXISTS idx_processing_jobs_claim ON processing_jobs (status, run_after);
+CREATE INDEX IF NOT EXISTS idx_processing_jobs_document ON processing_jobs (document_id, type);
+-- At most one queued/running job per document and type, even under concurrent enqueues
+CREATE UNIQUE INDEX IF NOT EXISTS ux_processing_jobs_active
+    ON processing_jobs (document_id, type)
+    WHERE status IN ('QUEUED', 'RUNNING');
+
+-- LLM cache purge: DELETE ... WHERE created_at < ?
+CREATE INDEX IF NOT EXISTS idx_llm_response_cache_created ON llm_response_cache (created_at);
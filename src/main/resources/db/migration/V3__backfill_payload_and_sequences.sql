@@ -0,0 +1,57 @@
+-- Copy rows stored in the four child tables into the JSONB payload.
+-- Keys follow the @JsonProperty names of ExtractedDataDto.
+UPDATE patient_data p
+SET payload = jsonb_build_object(
+        'fio_initials', p.fio_initials,
+        'date_of_birth', p.date_of_birth,
+        'diagnosis_primary', p.diagnosis_primary,
+        'stage', p.stage,
+        'subtype', p.subtype,
+        'treatment_history', COALESCE((
+            SELECT jsonb_agg(jsonb_build_object(
+                       'treatment_type', t.treatment_type,
+                       'description', t.description,
+                       'start_date', t.start_date,
+                       'end_date', t.end_date,
+                       'outcome_dynamic', t.outcome_dynamic,
+                       'outcome_date', t.outcome_date,
+                       'details', t.details) ORDER BY t.id)
+            FROM treatment_history t WHERE t.patient_data_id = p.id), '[]'::jsonb),
+        'biopsy_results', COALESCE((
+            SELECT jsonb_agg(jsonb_build_object(
+                       'date', b.date,
+                       'type', b.type,
+                       'result_summary', b.result_summary) ORDER BY b.id)
+            FROM biopsy_results b WHERE b.patient_data_id = p.id), '[]'::jsonb),
+        'consultations', COALESCE((
+            SELECT jsonb_agg(jsonb_build_object(
+                       'date', c.date,
+                       'recommendation', c.recommendation) ORDER BY c.id)
+            FROM consultations c WHERE c.patient_data_id = p.id), '[]'::jsonb),
+        'imaging_results', COALESCE((
+            SELECT jsonb_agg(jsonb_build_object(
+                       'date', i.date,
+                       'type', i.type,
+                       'findings', i.findings) ORDER BY i.id)
+            FROM imaging_results i WHERE i.patient_data_id = p.id), '[]'::jsonb)
+    )
+WHERE p.payload IS NULL;
+
+-- Move pooled id sequences past ids inserted while these tables used IDENTITY columns.
+-- Hibernate allocates (value - 49 .. value), so the next value must exceed max(id) + 50.
+DO $$
+DECLARE
+    t      TEXT;
+    max_id BIGINT;
+    last   BIGINT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['patient_data', 'treatment_history', 'biopsy_results', 'consultations',
+                             'imaging_results', 'analysis_results', 'analysis_mismatches']
+    LOOP
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', t) INTO max_id;
+        EXECUTE format('SELECT last_value FROM %I', t || '_seq') INTO last;
+        IF last <= max_id THEN
+            PERFORM setval(t || '_seq', max_id + 50);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,2 @@
+-- Optimistic-lock version for patient_documents (PatientDocument.version)
+ALTER TABLE patient_documents ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
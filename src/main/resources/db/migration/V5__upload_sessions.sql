@@ -0,0 +1,24 @@
+-- Direct-to-MinIO uploads through presigned PUT URLs (UploadSession)
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id                           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                      BIGINT       NOT NULL REFERENCES users (id),
+    status                       VARCHAR(255) NOT NULL,
+    medical_history_key          VARCHAR(255),
+    medical_history_filename     VARCHAR(255),
+    medical_history_content_type VARCHAR(255),
+    medical_history_size         BIGINT,
+    medical_history_sha256       VARCHAR(255),
+    treatment_plan_key           VARCHAR(255),
+    treatment_plan_filename      VARCHAR(255),
+    treatment_plan_content_type  VARCHAR(255),
+    treatment_plan_size          BIGINT,
+    treatment_plan_sha256        VARCHAR(255),
+    document_id                  BIGINT REFERENCES patient_documents (id),
+    error_message                TEXT,
+    created_at                   TIMESTAMP(6),
+    expires_at                   TIMESTAMP(6),
+    version                      BIGINT       NOT NULL DEFAULT 0
+);
+
+-- Purge of abandoned sessions
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_status_expires ON upload_sessions (status, expires_at);
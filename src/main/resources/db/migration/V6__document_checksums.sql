@@ -0,0 +1,3 @@
+-- SHA-256 of each stored file, recorded at ingest (PatientDocument.*Sha256)
+ALTER TABLE patient_documents ADD COLUMN IF NOT EXISTS medical_history_sha256 VARCHAR(64);
+ALTER TABLE patient_documents ADD COLUMN IF NOT EXISTS treatment_plan_sha256 VARCHAR(64);
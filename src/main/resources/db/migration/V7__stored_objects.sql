@@ -0,0 +1,16 @@
+-- Content-addressed, reference-counted MinIO objects (StoredObject)
+CREATE TABLE IF NOT EXISTS stored_objects (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT       NOT NULL REFERENCES users (id),
+    sha256       VARCHAR(64)  NOT NULL,
+    object_key   VARCHAR(255) NOT NULL,
+    size         BIGINT,
+    content_type VARCHAR(255),
+    ref_count    INTEGER      NOT NULL,
+    created_at   TIMESTAMP(6),
+    CONSTRAINT uk_stored_objects_user_sha256 UNIQUE (user_id, sha256)
+);
+
+-- Finding a completed document with the same medical history to reuse its extraction
+CREATE INDEX IF NOT EXISTS idx_patient_documents_user_history_sha256
+    ON patient_documents (user_id, medical_history_sha256);
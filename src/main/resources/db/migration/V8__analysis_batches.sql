@@ -0,0 +1,28 @@
+-- Batch re-analysis of many documents through the job queue (AnalysisBatch)
+CREATE TABLE IF NOT EXISTS analysis_batches (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT       NOT NULL REFERENCES users (id),
+    status      VARCHAR(255) NOT NULL,
+    parallelism INTEGER      NOT NULL,
+    total       INTEGER      NOT NULL,
+    created_at  TIMESTAMP(6),
+    finished_at TIMESTAMP(6)
+);
+
+-- Pooled ids so a batch's items are inserted in JDBC batches
+CREATE SEQUENCE IF NOT EXISTS analysis_batch_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS analysis_batch_items (
+    id          BIGINT PRIMARY KEY,
+    batch_id    BIGINT       NOT NULL REFERENCES analysis_batches (id),
+    document_id BIGINT       NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    job_id      BIGINT,
+    error       TEXT,
+    finished_at TIMESTAMP(6),
+    CONSTRAINT uk_analysis_batch_items_batch_document UNIQUE (batch_id, document_id)
+);
+
+-- Pump: batches still running, and the next items of a batch in a given status
+CREATE INDEX IF NOT EXISTS idx_analysis_batches_status ON analysis_batches (status);
+CREATE INDEX IF NOT EXISTS idx_analysis_batch_items_batch_status ON analysis_batch_items (batch_id, status, id);
@@ -0,0 +1,2 @@
+-- ANALYSIS jobs that must ask the LLM even if a cached response exists (batches, explicit re-analysis)
+ALTER TABLE processing_jobs ADD COLUMN IF NOT EXISTS bypass_cache BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,159 @@
+package com.gnegdev.path.analysis;
+
+import com.gnegdev.path.analysis.dto.AnalysisResultDto;
+import com.gnegdev.path.analysis.repository.AnalysisResultRepository;
+import com.gnegdev.path.analysis.service.AnalysisService;
+import com.gnegdev.path.analysis.service.YandexLlmService;
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.auth.repository.UserRepository;
+import com.gnegdev.path.document.entity.DocumentText;
+import com.gnegdev.path.document.entity.PatientDocument;
+import com.gnegdev.path.document.repository.DocumentTextRepository;
+import com.gnegdev.path.document.repository.PatientDocumentRepository;
+import com.gnegdev.path.document.service.MinioStorageService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * The LLM call takes seconds; it must run between the read and write transactions,
+ * with every pooled connection back in the pool.
+ */
+@SpringBootTest(properties = "app.jobs.enabled=false")
+@Testcontainers
+class AnalysisConnectionReleaseTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @MockitoBean
+    private YandexLlmService yandexLlmService;
+
+    @MockitoBean
+    private MinioStorageService minioStorageService;
+
+    @Autowired
+    private AnalysisService analysisService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PatientDocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentTextRepository documentTextRepository;
+
+    @MockitoSpyBean
+    private AnalysisResultRepository analysisResultRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private User user;
+    private PatientDocument document;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("doctor-" + System.nanoTime())
+                .email(System.nanoTime() + "@example.com")
+                .password("x")
+                .build());
+        document = documentRepository.save(PatientDocument.builder()
+                .user(user)
+                .medicalHistoryKey("key")
+                .status(PatientDocument.ProcessingStatus.COMPLETED)
+                .build());
+        documentTextRepository.save(DocumentText.builder()
+                .documentId(document.getId())
+                .medicalHistory("history")
+                .treatmentPlan("plan")
+                .build());
+    }
+
+    @Test
+    void noConnectionIsHeldDuringLlmCall() throws SQLException {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        AtomicInteger activeDuringCall = new AtomicInteger(-1);
+        AtomicBoolean transactionDuringCall = new AtomicBoolean(true);
+        when(yandexLlmService.analyze("history", "plan", false)).thenAnswer(invocation -> {
+            activeDuringCall.set(pool.getActiveConnections());
+            transactionDuringCall.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return analysis();
+        });
+
+        analysisService.analyze(document.getId(), user, false);
+
+        assertThat(activeDuringCall.get()).isZero();
+        assertThat(transactionDuringCall.get()).isFalse();
+        assertThat(analysisResultRepository.findByDocumentId(document.getId())).isPresent();
+    }
+
+    @Test
+    void resultIsRejectedWhenDocumentChangedDuringLlmCall() {
+        when(yandexLlmService.analyze("history", "plan", false)).thenAnswer(invocation -> {
+            PatientDocument concurrent = documentRepository.findById(document.getId()).orElseThrow();
+            concurrent.setStatus(PatientDocument.ProcessingStatus.FAILED);
+            documentRepository.save(concurrent);
+            return analysis();
+        });
+
+        assertThatThrownBy(() -> analysisService.analyze(document.getId(), user, false))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(analysisResultRepository.findByDocumentId(document.getId())).isEmpty();
+    }
+
+    @Test
+    void resultIsRejectedWhenDocumentChangesAfterVersionCheck() {
+        when(yandexLlmService.analyze("history", "plan", false)).thenReturn(analysis());
+        // Runs inside the write transaction, after the document was re-read and its version compared
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> {
+                PatientDocument concurrent = documentRepository.findById(document.getId()).orElseThrow();
+                concurrent.setStatus(PatientDocument.ProcessingStatus.FAILED);
+                documentRepository.save(concurrent);
+            }).join();
+            return invocation.callRealMethod();
+        }).when(analysisResultRepository).findByDocumentId(document.getId());
+
+        assertThatThrownBy(() -> analysisService.analyze(document.getId(), user, false))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        reset(analysisResultRepository);
+        assertThat(analysisResultRepository.findByDocumentId(document.getId())).isEmpty();
+    }
+
+    private AnalysisResultDto analysis() {
+        AnalysisResultDto dto = new AnalysisResultDto();
+        dto.setOptimal("Соответствует");
+        dto.setMismatches(List.of());
+        dto.setRecommendations(List.of("r1"));
+        dto.setSources(List.of("s1"));
+        return dto;
+    }
+}
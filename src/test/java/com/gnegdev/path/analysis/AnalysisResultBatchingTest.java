@@ -0,0 +1,121 @@
+package com.gnegdev.path.analysis;
+
+import com.gnegdev.path.analysis.dto.AnalysisResultDto;
+import com.gnegdev.path.analysis.entity.AnalysisResult;
+import com.gnegdev.path.analysis.repository.AnalysisResultRepository;
+import com.gnegdev.path.auth.entity.User;
+import com.gnegdev.path.document.entity.PatientDocument;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saving an analysis must cost a fixed number of statements however many entries it has:
+ * ids come from pooled sequences, so Hibernate can send each table's rows as one JDBC batch.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+class AnalysisResultBatchingTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AnalysisResultRepository analysisResultRepository;
+
+    private Statistics statistics;
+    private PatientDocument document;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        User user = entityManager.persist(User.builder()
+                .username("doctor-" + System.nanoTime())
+                .email(System.nanoTime() + "@example.com")
+                .password("x")
+                .build());
+        document = entityManager.persist(PatientDocument.builder()
+                .user(user)
+                .medicalHistoryKey("key")
+                .status(PatientDocument.ProcessingStatus.COMPLETED)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void newAnalysisIsSavedInConstantStatements() {
+        AnalysisResult result = AnalysisResult.builder()
+                .document(entityManager.find(PatientDocument.class, document.getId()))
+                .build();
+        statistics.clear();
+        result.apply(analysis(20), LocalDateTime.now());
+        analysisResultRepository.save(result);
+        entityManager.flush();
+
+        // 2 sequence calls + one insert (batch) each for results, mismatches, recommendations, sources
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(21);
+    }
+
+    @Test
+    void reanalysisUpdatesExistingResultInPlace() {
+        AnalysisResult first = AnalysisResult.builder()
+                .document(entityManager.find(PatientDocument.class, document.getId()))
+                .build();
+        first.apply(analysis(20), LocalDateTime.now());
+        analysisResultRepository.save(first);
+        entityManager.flush();
+        entityManager.clear();
+
+        AnalysisResult existing = analysisResultRepository.findByDocumentId(document.getId()).orElseThrow();
+        statistics.clear();
+        existing.apply(analysis(20), LocalDateTime.now());
+        analysisResultRepository.save(existing);
+        entityManager.flush();
+
+        var resultStats = statistics.getEntityStatistics(AnalysisResult.class.getName());
+        assertThat(resultStats.getInsertCount()).isZero();
+        assertThat(resultStats.getDeleteCount()).isZero();
+        assertThat(resultStats.getUpdateCount()).isEqualTo(1);
+        // update + batched delete/insert for mismatches, recommendations and sources (+ at most one sequence call)
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+    }
+
+    private AnalysisResultDto analysis(int entries) {
+        AnalysisResultDto dto = new AnalysisResultDto();
+        dto.setOptimal("Частично соответствует");
+        dto.setMismatches(IntStream.range(0, entries).mapToObj(i -> {
+            AnalysisResultDto.MismatchDto m = new AnalysisResultDto.MismatchDto();
+            m.setType("type-" + i);
+            m.setCurrent("current-" + i);
+            m.setRecommended("recommended-" + i);
+            return m;
+        }).toList());
+        dto.setRecommendations(List.of("r1", "r2", "r3"));
+        dto.setSources(List.of("s1", "s2"));
+        return dto;
+    }
+}
@@ -0,0 +1,342 @@
+package com.gnegdev.path.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end throughput of upload → extraction → analyze → get, with no external services:
+ * the app runs against embedded PostgreSQL, an in-memory S3 endpoint for MinIO and
+ * {@link LlmStubServer} for Yandex Cloud. Reports p50/p99 latency and throughput per endpoint
+ * and writes them to {@code load.report}. Running it once per {@code load.virtual-threads} setting compares
+ * the app's concurrent-request capacity with Tomcat's platform worker pool and with virtual threads.
+ * By default every workflow runs as its own user: uploads are deduplicated per user, so a user uploading
+ * a history they already uploaded gets the copied extraction at once and the pipeline never runs. With fewer
+ * users than workflows such uploads are counted as {@code deduplicatedUploads} and timed apart from extraction.
+ *
+ * Not part of the default build: run with {@code mvn test -Pload-test -Dtest=EndToEndLoadTest}.
+ * Settings are system properties:
+ * <pre>
+ * load.concurrency        workflows in flight                                  (16)
+ * load.iterations         workflows in total                                   (200)
+ * load.documents          distinct medical histories, reused round-robin       (20)
+ * load.users              distinct users, reused round-robin                   (load.iterations)
+ * load.max-failures       failed workflows tolerated                           (0)
+ * load.virtual-threads    spring.threads.virtual.enabled for the app           (application.yaml)
+ * load.report             JSON report file                                     (target/load-report.json)
+ * llm.stub.mode           CANNED | RECORD | REPLAY                             (CANNED)
+ * llm.stub.latency-p50    median stub latency                                  (800ms)
+ * llm.stub.latency-p99    99th percentile stub latency                         (3s)
+ * llm.stub.error-rate     share of stub requests failing with error-status     (0.0)
+ * llm.stub.error-status   HTTP status of injected failures                     (503)
+ * llm.stub.recordings     directory of recorded responses                      (src/test/resources/load/recordings)
+ * llm.stub.upstream       real API for RECORD, with YANDEX_CLOUD_API_KEY set   (https://rest-assistant.api.cloud.yandex.net/v1/)
+ * </pre>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "app.llm-cache.enabled=false",
+        "app.llm.resilience.rate-limit.requests-per-second=10000",
+        "app.llm.resilience.rate-limit.burst=10000",
+        "app.llm.resilience.retry.backoff-base=100ms",
+        "app.jobs.poll-interval-ms=100"
+})
+class EndToEndLoadTest {
+
+    private static final String ANALYSIS_PROMPT = "load-analysis-prompt";
+    private static final String EXTRACTION_PROMPT = "load-extraction-prompt";
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 200);
+    private static final int DOCUMENTS = Integer.getInteger("load.documents", 20);
+    private static final int USERS = Integer.getInteger("load.users", ITERATIONS);
+    private static final int MAX_FAILURES = Integer.getInteger("load.max-failures", 0);
+    private static final String VIRTUAL_THREADS = System.getProperty("load.virtual-threads");
+    private static final Path REPORT = Path.of(System.getProperty("load.report", "target/load-report.json"));
+    private static final Duration PIPELINE_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final EmbeddedPostgres postgres;
+    private static final S3StubServer s3;
+    private static final LlmStubServer llm;
+    private static final LlmStubServer.Mode llmMode;
+
+    static {
+        try {
+            postgres = EmbeddedPostgres.builder().start();
+            s3 = new S3StubServer();
+            llmMode = LlmStubServer.Mode.valueOf(System.getProperty("llm.stub.mode", "CANNED"));
+            String upstream = System.getProperty("llm.stub.upstream", "https://rest-assistant.api.cloud.yandex.net/v1/");
+            llm = new LlmStubServer(
+                    llmMode,
+                    Map.of(ANALYSIS_PROMPT, resource("analysis-response.json"),
+                            EXTRACTION_PROMPT, resource("extraction-response.json")),
+                    Path.of(System.getProperty("llm.stub.recordings", "src/test/resources/load/recordings")),
+                    URI.create(upstream.endsWith("/") ? upstream : upstream + "/"),
+                    DurationStyle.detectAndParse(System.getProperty("llm.stub.latency-p50", "800ms")),
+                    DurationStyle.detectAndParse(System.getProperty("llm.stub.latency-p99", "3s")),
+                    Double.parseDouble(System.getProperty("llm.stub.error-rate", "0")),
+                    Integer.getInteger("llm.stub.error-status", 503)
+            );
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("minio.endpoint", s3::endpoint);
+        registry.add("yandex.cloud.base-url", llm::baseUrl);
+        if (VIRTUAL_THREADS != null) {
+            registry.add("spring.threads.virtual.enabled", () -> VIRTUAL_THREADS);
+        }
+        if (llmMode != LlmStubServer.Mode.RECORD) {
+            // Recording needs the real prompts and key; otherwise the stub answers by these ids
+            registry.add("yandex.cloud.prompt-id", () -> ANALYSIS_PROMPT);
+            registry.add("yandex.cloud.extraction-prompt-id", () -> EXTRACTION_PROMPT);
+            registry.add("yandex.cloud.api-key", () -> "load-test");
+        }
+    }
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicInteger deduplicatedUploads = new AtomicInteger();
+
+    @AfterAll
+    static void stopStandIns() throws IOException {
+        llm.close();
+        s3.close();
+        postgres.close();
+    }
+
+    @Test
+    void uploadAnalyzeGetWorkload() throws Exception {
+        List<String> tokens = registerUsers();
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        List<Future<?>> workflows = new ArrayList<>(ITERATIONS);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ITERATIONS; i++) {
+                int iteration = i;
+                inFlight.acquire();
+                workflows.add(executor.submit(() -> {
+                    try {
+                        runWorkflow(tokens.get(iteration % USERS), iteration % DOCUMENTS);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("Workflow " + iteration + " failed: " + e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> workflow : workflows) {
+                workflow.get();
+            }
+        }
+        Duration wallTime = Duration.ofNanos(System.nanoTime() - start);
+
+        List<LatencyRecorder.EndpointStats> stats = recorder.summarize(wallTime);
+        System.out.printf("%n%d workflows of %d users at concurrency %d in %.1fs, %d failed, %d uploads deduplicated; "
+                        + "LLM stub: %d requests, %d injected errors, %d replay misses%n",
+                ITERATIONS, USERS, CONCURRENCY, wallTime.toMillis() / 1000.0, failures.get(), deduplicatedUploads.get(),
+                llm.requests(), llm.injectedErrors(), llm.replayMisses());
+        LatencyRecorder.print(stats);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("iterations", ITERATIONS);
+        run.put("concurrency", CONCURRENCY);
+        run.put("users", USERS);
+        run.put("virtualThreads", virtualThreads);
+        run.put("wallTimeMs", wallTime.toMillis());
+        run.put("failedWorkflows", failures.get());
+        run.put("deduplicatedUploads", deduplicatedUploads.get());
+        run.put("workflowsPerSecond", ITERATIONS / (wallTime.toNanos() / 1e9));
+        run.put("llmStubMode", llmMode.name());
+        run.put("llmStubRequests", llm.requests());
+        run.put("llmStubInjectedErrors", llm.injectedErrors());
+        LatencyRecorder.writeJson(REPORT, run, stats);
+
+        assertThat(failures.get()).isLessThanOrEqualTo(MAX_FAILURES);
+    }
+
+    /**
+     * One user journey. The pipeline is asynchronous, so "extraction" is measured from the upload
+     * response until the status poll sees {@code COMPLETED}. A deduplicated upload is already
+     * {@code COMPLETED} and goes straight to analysis.
+     */
+    private void runWorkflow(String token, int document) throws Exception {
+        JsonNode uploaded = call("POST /api/documents/upload", multipartUpload(token, document), 202);
+        long id = uploaded.path("id").asLong();
+        if ("COMPLETED".equals(uploaded.path("status").asText())) {
+            deduplicatedUploads.incrementAndGet();
+        } else {
+            awaitExtraction(token, id);
+        }
+
+        call("POST /api/documents/{id}/analysis", authorized(token, "/api/documents/" + id + "/analysis")
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), 200);
+        call("GET /api/documents/{id}/analysis", authorized(token, "/api/documents/" + id + "/analysis")
+                .GET().build(), 200);
+    }
+
+    private void awaitExtraction(String token, long id) throws Exception {
+        long extractionStart = System.nanoTime();
+        String status;
+        do {
+            Thread.sleep(200);
+            status = call("GET /api/documents/{id}/status", authorized(token, "/api/documents/" + id + "/status")
+                    .GET().build(), 200).path("status").asText();
+            if (System.nanoTime() - extractionStart > PIPELINE_TIMEOUT.toNanos()) {
+                throw new IllegalStateException("Document " + id + " not processed in " + PIPELINE_TIMEOUT);
+            }
+        } while (!"COMPLETED".equals(status) && !"FAILED".equals(status));
+        recorder.record("pipeline: extraction", System.nanoTime() - extractionStart, "COMPLETED".equals(status));
+        if (!"COMPLETED".equals(status)) {
+            throw new IllegalStateException("Document " + id + " failed extraction");
+        }
+    }
+
+    private JsonNode call(String endpoint, HttpRequest request, int expectedStatus) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, false);
+            throw e;
+        }
+        boolean success = response.statusCode() == expectedStatus;
+        recorder.record(endpoint, System.nanoTime() - start, success);
+        if (!success) {
+            throw new IllegalStateException(endpoint + " returned " + response.statusCode());
+        }
+        return response.body().isEmpty() ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Registered before the clock starts and not recorded: password hashing would otherwise show up
+     * in the workload it is not part of.
+     */
+    private List<String> registerUsers() throws Exception {
+        List<Callable<String>> registrations = Collections.nCopies(USERS, this::registerUser);
+        List<String> tokens = new ArrayList<>(USERS);
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(CONCURRENCY, USERS))) {
+            for (Future<String> token : executor.invokeAll(registrations)) {
+                tokens.add(token.get());
+            }
+        }
+        return tokens;
+    }
+
+    private String registerUser() throws Exception {
+        String username = "load-" + UUID.randomUUID().toString().substring(0, 8);
+        String body = objectMapper.writeValueAsString(Map.of(
+                "username", username,
+                "email", username + "@example.com",
+                "password", "load-test-password"));
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST /api/auth/register returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    private HttpRequest multipartUpload(String token, int document) {
+        String boundary = "load-" + UUID.randomUUID();
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"medicalHistory\"; filename=\"history-" + document + ".txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + medicalHistory(document) + "\r\n"
+                + "--" + boundary + "--\r\n";
+        return authorized(token, "/api/documents/upload")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Deterministic per index, so recordings made for one run replay in the next.
+     */
+    private static String medicalHistory(int document) {
+        String[] lines = {
+                "Диагноз: рак молочной железы, стадия IIB.",
+                "Проведено 4 курса химиотерапии по схеме AC, частичный ответ.",
+                "Трепан-биопсия: инвазивная карцинома G2, ER 8, PR 6, HER2 1+, Ki-67 35%.",
+                "КТ ОГК/ОБП: очаговых изменений не выявлено.",
+                "Консилиум: продолжить лечение, паклитаксел еженедельно №12."
+        };
+        Random random = new Random(document);
+        StringBuilder text = new StringBuilder("Пациент №" + document + "\n");
+        for (int i = 0; i < 200; i++) {
+            text.append(lines[random.nextInt(lines.length)]).append('\n');
+        }
+        return text.toString();
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = EndToEndLoadTest.class.getResourceAsStream("/load/" + name)) {
+            if (in == null) throw new IOException("Missing load-test resource: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.gnegdev.path.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects per-endpoint latencies during a load run and reports p50/p99 and throughput,
+ * on the console and as JSON. Every sample is kept; runs are small enough for that to be cheap.
+ */
+class LatencyRecorder {
+
+    record EndpointStats(String endpoint, long requests, long errors, double p50Ms, double p99Ms,
+                         double maxMs, double throughputPerSecond) {
+    }
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean success) {
+        samples.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>()).add(nanos);
+        if (!success) {
+            errors.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    List<EndpointStats> summarize(Duration wallTime) {
+        List<EndpointStats> stats = new ArrayList<>();
+        samples.forEach((endpoint, queue) -> {
+            long[] sorted = queue.stream().mapToLong(Long::longValue).sorted().toArray();
+            stats.add(new EndpointStats(
+                    endpoint,
+                    sorted.length,
+                    errors.getOrDefault(endpoint, new AtomicLong()).get(),
+                    millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]),
+                    sorted.length / (wallTime.toNanos() / 1e9)
+            ));
+        });
+        stats.sort((a, b) -> a.endpoint().compareTo(b.endpoint()));
+        return stats;
+    }
+
+    static void print(List<EndpointStats> stats) {
+        System.out.printf("%-32s %8s %7s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "max ms", "req/s");
+        for (EndpointStats s : stats) {
+            System.out.printf("%-32s %8d %7d %10.1f %10.1f %10.1f %10.1f%n",
+                    s.endpoint(), s.requests(), s.errors(), s.p50Ms(), s.p99Ms(), s.maxMs(), s.throughputPerSecond());
+        }
+    }
+
+    static void writeJson(Path file, Map<String, Object> run, List<EndpointStats> stats) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>(run);
+        report.put("endpoints", stats);
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
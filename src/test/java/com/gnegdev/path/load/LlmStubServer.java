@@ -0,0 +1,245 @@
+package com.gnegdev.path.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Yandex Cloud {@code POST /responses} API.
+ * <ul>
+ *   <li>{@code CANNED} — answers every prompt with a fixed response body;</li>
+ *   <li>{@code RECORD} — forwards to the real API and saves each response under a hash of (prompt id, input);</li>
+ *   <li>{@code REPLAY} — answers from saved recordings, falling back to the canned body when none matches.</li>
+ * </ul>
+ * Outside {@code RECORD}, every request waits for a log-normal latency (given median and p99)
+ * and fails with {@code errorStatus} at {@code errorRate}, so retries and the circuit breaker are exercised.
+ * Requests with {@code "stream": true} are answered as a Responses API event stream.
+ */
+@Slf4j
+class LlmStubServer implements AutoCloseable {
+
+    enum Mode { CANNED, RECORD, REPLAY }
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient upstream = HttpClient.newHttpClient();
+
+    private final Mode mode;
+    private final Map<String, String> cannedByPromptId;
+    private final Path recordings;
+    private final URI upstreamUrl;
+    private final Duration latencyMedian;
+    private final double latencySigma;
+    private final double errorRate;
+    private final int errorStatus;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong replayMisses = new AtomicLong();
+
+    LlmStubServer(Mode mode, Map<String, String> cannedByPromptId, Path recordings, URI upstreamUrl,
+                  Duration latencyMedian, Duration latencyP99, double errorRate, int errorStatus) throws IOException {
+        this.mode = mode;
+        this.cannedByPromptId = cannedByPromptId;
+        this.recordings = recordings;
+        this.upstreamUrl = upstreamUrl;
+        this.latencyMedian = latencyMedian;
+        // p99 of a log-normal distribution is median * e^(2.326 * sigma)
+        this.latencySigma = latencyP99.compareTo(latencyMedian) > 0
+                ? Math.log((double) latencyP99.toNanos() / latencyMedian.toNanos()) / 2.326
+                : 0;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/responses", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    long replayMisses() {
+        return replayMisses.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            JsonNode request = objectMapper.readTree(requestBody);
+            String promptId = request.path("prompt").path("id").asText();
+            String input = request.path("input").asText();
+            boolean stream = request.path("stream").asBoolean(false);
+
+            if (mode == Mode.RECORD) {
+                record(exchange, requestBody, promptId, input);
+                return;
+            }
+
+            sleep(sampleLatency());
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                send(exchange, errorStatus, "application/json",
+                        "{\"error\":{\"message\":\"injected by LlmStubServer\"}}");
+                return;
+            }
+
+            String body = responseFor(promptId, input);
+            if (stream) {
+                sendEventStream(exchange, body);
+            } else {
+                send(exchange, 200, "application/json", body);
+            }
+        } catch (RuntimeException e) {
+            log.error("LLM stub failed: {}", e.getMessage(), e);
+            send(exchange, 500, "application/json", "{\"error\":{\"message\":\"stub failure\"}}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String responseFor(String promptId, String input) throws IOException {
+        if (mode == Mode.REPLAY) {
+            Path recorded = recordings.resolve(recordingKey(promptId, input) + ".json");
+            if (Files.exists(recorded)) {
+                return Files.readString(recorded);
+            }
+            replayMisses.incrementAndGet();
+        }
+        String canned = cannedByPromptId.get(promptId);
+        if (canned == null) {
+            throw new IllegalStateException("No canned response for prompt " + promptId);
+        }
+        return canned;
+    }
+
+    /**
+     * Forwards the request with its original auth headers. Only successful blocking responses are saved;
+     * streamed answers are recorded by re-running the same input without streaming.
+     */
+    private void record(HttpExchange exchange, byte[] requestBody, String promptId, String input) throws IOException {
+        ObjectNode blocking = (ObjectNode) objectMapper.readTree(requestBody);
+        blocking.put("stream", false);
+        HttpRequest.Builder forward = HttpRequest.newBuilder(upstreamUrl.resolve("responses"))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(blocking)));
+        for (String header : new String[]{"Authorization", "OpenAI-Project"}) {
+            String value = exchange.getRequestHeaders().getFirst(header);
+            if (value != null) forward.header(header, value);
+        }
+
+        HttpResponse<String> response;
+        try {
+            response = upstream.send(forward.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recording", e);
+        }
+        if (response.statusCode() == 200) {
+            Files.createDirectories(recordings);
+            Files.writeString(recordings.resolve(recordingKey(promptId, input) + ".json"), response.body());
+        }
+        boolean stream = objectMapper.readTree(requestBody).path("stream").asBoolean(false);
+        if (stream && response.statusCode() == 200) {
+            sendEventStream(exchange, response.body());
+        } else {
+            send(exchange, response.statusCode(), "application/json", response.body());
+        }
+    }
+
+    private void sendEventStream(HttpExchange exchange, String responseBody) throws IOException {
+        JsonNode response = objectMapper.readTree(responseBody);
+        String text = response.path("output").path(0).path("content").path(0).path("text").asText("");
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int chunk = Math.max(1, text.length() / 20);
+        for (int i = 0; i < text.length(); i += chunk) {
+            ObjectNode delta = objectMapper.createObjectNode()
+                    .put("type", "response.output_text.delta")
+                    .put("delta", text.substring(i, Math.min(text.length(), i + chunk)));
+            writeEvent(out, delta);
+        }
+        ObjectNode completed = objectMapper.createObjectNode().put("type", "response.completed");
+        completed.set("response", response);
+        writeEvent(out, completed);
+    }
+
+    private void writeEvent(OutputStream out, JsonNode event) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private Duration sampleLatency() {
+        double factor = Math.exp(latencySigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (latencyMedian.toNanos() * factor));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String recordingKey(String promptId, String input) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(promptId.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) '\n');
+            sha256.update(input.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
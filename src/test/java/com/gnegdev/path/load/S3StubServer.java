@@ -0,0 +1,132 @@
+package com.gnegdev.path.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory, path-style S3 endpoint covering what the MinIO client needs here: bucket location and
+ * existence checks, and single-part PUT, GET, HEAD and DELETE of objects. Every bucket exists; signatures
+ * are not verified. Objects above the client's 5 MiB part size (multipart uploads) are not supported.
+ */
+class S3StubServer implements AutoCloseable {
+
+    private record StoredObject(byte[] data, String contentType, String etag) {
+    }
+
+    private final HttpServer server;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    S3StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    int objectCount() {
+        return objects.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            int slash = path.indexOf('/', 1);
+            String key = slash < 0 || slash == path.length() - 1 ? null : path;
+
+            if (key == null) {
+                handleBucket(exchange, query);
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    byte[] data = exchange.getRequestBody().readAllBytes();
+                    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                    StoredObject object = new StoredObject(data, contentType, md5(data));
+                    objects.put(key, object);
+                    exchange.getResponseHeaders().add("ETag", "\"" + object.etag() + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET", "HEAD" -> {
+                    StoredObject object = objects.get(key);
+                    if (object == null) {
+                        sendError(exchange, 404, "NoSuchKey", key);
+                        return;
+                    }
+                    exchange.getResponseHeaders().add("ETag", "\"" + object.etag() + "\"");
+                    exchange.getResponseHeaders().add("Content-Type",
+                            object.contentType() != null ? object.contentType() : "application/octet-stream");
+                    exchange.getResponseHeaders().add("Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT");
+                    if ("HEAD".equals(exchange.getRequestMethod())) {
+                        exchange.getResponseHeaders().add("Content-Length", String.valueOf(object.data().length));
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, object.data().length);
+                        exchange.getResponseBody().write(object.data());
+                    }
+                }
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> sendError(exchange, 501, "NotImplemented", key);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String query) throws IOException {
+        if (query != null && query.startsWith("location")) {
+            byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<LocationConstraint xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">us-east-1</LocationConstraint>")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            return;
+        }
+        // HEAD (exists) and PUT (create) both succeed: every bucket exists
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String resource) throws IOException {
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code>"
+                + "<Message>" + code + "</Message><Resource>" + resource + "</Resource>"
+                + "<RequestId>stub</RequestId><HostId>stub</HostId></Error>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static String md5(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}